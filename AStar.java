@@ -1,6 +1,6 @@
 /**
  * This is the template for a class that performs A* search on a given
- * rush hour puzzle with a given heuristic.  The main search
+ * rubiks cube with a given heuristic.  The main search
  * computation is carried out by the constructor for this class, which
  * must be filled in.  The solution (a path from the initial state to
  * a goal state) is returned as an array of <tt>State</tt>s called
@@ -24,6 +24,7 @@ public class AStar {
         private int cost;
         private int hVal;
         private int funcVal;
+        private int[] databaseVals;
         
         public NodeWrapper(Node node, int cost, int hVal)
         {
@@ -32,6 +33,22 @@ public class AStar {
             this.hVal = hVal;
             this.funcVal = this.cost + this.hVal;
         }
+
+        // a wrapper that also keeps the value of each pattern database
+        // of the heuristic, whose largest is the heuristic value
+        public NodeWrapper(Node node, int cost, int[] databaseVals)
+        {
+            this(node, cost, max(databaseVals));
+            this.databaseVals = databaseVals;
+        }
+
+        private static int max(int[] values)
+        {
+            int max = 0;
+            for (int i = 0; i < values.length; i++)
+                max = Math.max(max, values[i]);
+            return max;
+        }
         
         // return the node
         public Node getNode()
@@ -56,6 +73,12 @@ public class AStar {
         {
             return funcVal;
         }
+
+        // get the values of the pattern databases, or null if not kept
+        public int[] getDatabaseVals()
+        {
+            return databaseVals;
+        }
     }
     
     // comparator for node wrapper class
@@ -75,24 +98,68 @@ public class AStar {
     /** The solution path is stored here */
     public State[] path;
 
+    /**
+     * The moves of the solution are stored here, one fewer than the
+     * states of <tt>path</tt>, in the metric of the cube searched.
+     */
+    public int[] moves;
+
     /**
      * This is the constructor that performs A* search to compute a
-     * solution for the given puzzle using the given heuristic.
+     * solution for the given cube using the given heuristic.
+     */
+    public AStar(RubiksCube puzzle, Heuristic heuristic) 
+    {
+        this(puzzle, heuristic, false);
+    }
+
+    /**
+     * Performs A* search as above.  If <tt>reduceSymmetry</tt> is true,
+     * states are recorded as expanded by their <tt>SymmetryKey</tt>, so
+     * that a state is skipped once any of its symmetric variants has
+     * been expanded.  This is only sound for a heuristic that gives
+     * symmetric states the same value.
+     * <p>
+     * When the heuristic is made of pattern databases whose metrics
+     * include the cube's moves, each node keeps the value of every
+     * database, and its children are looked up from those values with
+     * <tt>PatternDatabase.getValues(states, parentValue, values)</tt>,
+     * which takes a single read per child even for distances mod 3.
      */
-    public AStar(Puzzle puzzle, Heuristic heuristic) 
+    public AStar(RubiksCube puzzle, Heuristic heuristic, boolean reduceSymmetry) 
     {   
         path = null;
+        moves = null;
         // frontier container is priority queue
         Comparator<NodeWrapper> comparator = new NodeWrapperComp();
         PriorityQueue<NodeWrapper> frontier = new PriorityQueue<NodeWrapper>(1, comparator);
         
         // expanded set container is a HashSet
-        HashSet<State> expanded = new HashSet<State>();
+        HashSet<Object> expanded = new HashSet<Object>();
         
+        // the pattern databases of the heuristic, if their values can be
+        // passed from parent to child
+        PatternDatabase[] databases = PatternDatabase.databasesOf(heuristic);
+        if (databases != null)
+            for (int k = 0; k < databases.length; k++)
+                if (!databases[k].covers(puzzle.getMoveMetric()))
+                    databases = null;
+
         // add start node to frontier
         Node initial = puzzle.getInitNode();
-        int hVal = heuristic.getValue(initial.getState());
-        NodeWrapper initialNW = new NodeWrapper(initial, initial.getDepth(), hVal);
+        NodeWrapper initialNW;
+        if (databases != null)
+        {
+            int[] databaseVals = new int[databases.length];
+            for (int k = 0; k < databases.length; k++)
+                databaseVals[k] = databases[k].getValue(initial.getState());
+            initialNW = new NodeWrapper(initial, initial.getDepth(), databaseVals);
+        }
+        else
+        {
+            int hVal = heuristic.getValue(initial.getState());
+            initialNW = new NodeWrapper(initial, initial.getDepth(), hVal);
+        }
         frontier.add(initialNW);
         
         while (frontier.size() > 0)
@@ -101,22 +168,26 @@ public class AStar {
             NodeWrapper minNW = frontier.poll();
             Node minNode = minNW.getNode();
             State minState = minNode.getState();
+            Object key = reduceSymmetry ? CubeSymmetry.canonicalize(minState) : minState;
             
-            if (expanded.contains(minState))
+            if (expanded.contains(key))
             {
                 continue;
             }
             
-            expanded.add(minState);
+            expanded.add(key);
             
             // if goal, set <path> to solution
             if (minState.isGoal())
             {
                 Node currentNode = minNode;
                 path = new State[minNode.getDepth() + 1];
+                moves = new int[minNode.getDepth()];
                 for (int i = minNW.getCost(); i >= 0; i--)
                 {
                     path[i] = currentNode.getState();
+                    if (i > 0)
+                        moves[i - 1] = currentNode.getMove();
 
                     // asserts to make sure no off-by-one error
                     if (currentNode.getParent() == null)
@@ -132,13 +203,37 @@ public class AStar {
                 break;
             }
             
-            // add children of n to frontier
+            // add children of n to frontier, evaluating them together
             Node[] childrenNodes = minNode.expand();
+            State[] childrenStates = new State[childrenNodes.length];
+            for (int i = 0; i < childrenNodes.length; i++)
+            {
+                childrenStates[i] = childrenNodes[i].getState();
+            }
+            if (databases != null)
+            {
+                int[][] databaseVals = new int[childrenNodes.length][databases.length];
+                int[] scratch = new int[childrenNodes.length];
+                for (int k = 0; k < databases.length; k++)
+                {
+                    databases[k].getValues(childrenStates, minNW.getDatabaseVals()[k], scratch);
+                    for (int i = 0; i < childrenNodes.length; i++)
+                        databaseVals[i][k] = scratch[i];
+                }
+                for (int i = 0; i < childrenNodes.length; i++)
+                {
+                    NodeWrapper childNW = new NodeWrapper(childrenNodes[i], childrenNodes[i].getDepth(), databaseVals[i]);
+                    frontier.add(childNW);
+                }
+                continue;
+            }
+
+            int[] hVals = new int[childrenNodes.length];
+            heuristic.getValues(childrenStates, hVals);
             
             for (int i = 0; i < childrenNodes.length; i++)
             {
-                hVal = heuristic.getValue(childrenNodes[i].getState());
-                NodeWrapper childNW = new NodeWrapper(childrenNodes[i], childrenNodes[i].getDepth(), hVal);
+                NodeWrapper childNW = new NodeWrapper(childrenNodes[i], childrenNodes[i].getDepth(), hVals[i]);
                 frontier.add(childNW);
             } 
         }
@@ -0,0 +1,93 @@
+/**
+ * This class keeps, for each state on the current path of a depth-first
+ * search, the coordinates of every pattern database of a heuristic (see
+ * <tt>PatternDatabase.getCoordinates</tt>) and its value there.  The
+ * value of a child is then found by moving its parent's coordinates
+ * with <tt>PatternIndex.moveCoordinates</tt> and reading the table,
+ * without ranking the child's packed cubies.  The parent's value is
+ * passed along too, so that a database of distances mod 3 takes a
+ * single read (see <tt>PatternDatabase.getValueAt(coordinates,
+ * parentValue)</tt>), unless the move is not one of its metric's.
+ * Entries are kept per depth, so taking a move back costs nothing: the
+ * search simply pushes its next child at the same depth.
+ * <p>
+ * This only works for a heuristic made entirely of pattern databases:
+ * a <tt>PatternDatabase</tt>, or a <tt>MaxHeuristic</tt> of them,
+ * possibly nested.  <tt>of</tt> returns <tt>null</tt> for any other,
+ * and the search then calls the heuristic on its states as before.
+ * A stack belongs to a single search thread.
+ */
+class CoordinateStack
+{
+    private PatternDatabase[] databases;
+    // the moves of each database's metric are those before its end
+    private int[] metricEnds;
+    // the entries of depth d are at d * databases.length + k
+    private long[] coordinates;
+    private int[] values;
+
+    private CoordinateStack(PatternDatabase[] databases)
+    {
+        this.databases = databases;
+        metricEnds = new int[databases.length];
+        for (int k = 0; k < databases.length; k++)
+            metricEnds[k] = databases[k].getMoveMetric().getMoves().length;
+        coordinates = new long[databases.length];
+        values = new int[databases.length];
+    }
+
+    /**
+     * Returns a new stack for the pattern databases of the given
+     * heuristic, or <tt>null</tt> if it is not made of them alone.
+     */
+    static CoordinateStack of(Heuristic heuristic)
+    {
+        PatternDatabase[] databases = PatternDatabase.databasesOf(heuristic);
+        return databases == null ? null : new CoordinateStack(databases);
+    }
+
+    /**
+     * Makes the given state the one at depth 0, and returns the value of
+     * the heuristic there.
+     */
+    int setRoot(State state)
+    {
+        int max = 0;
+        for (int k = 0; k < databases.length; k++)
+        {
+            coordinates[k] = databases[k].getCoordinates(state);
+            values[k] = databases[k].getValueAt(coordinates[k]);
+            max = Math.max(max, values[k]);
+        }
+        return max;
+    }
+
+    /**
+     * Makes the state after <tt>move</tt> from the one at
+     * <tt>depth</tt> the one at <tt>depth + 1</tt>, and returns the
+     * value of the heuristic there.
+     */
+    int push(int depth, int move)
+    {
+        int n = databases.length;
+        int from = depth * n;
+        int to = from + n;
+        if (to + n > coordinates.length)
+        {
+            coordinates = java.util.Arrays.copyOf(coordinates, 2 * (to + n));
+            values = java.util.Arrays.copyOf(values, 2 * (to + n));
+        }
+
+        int max = 0;
+        for (int k = 0; k < n; k++)
+        {
+            coordinates[to + k] = databases[k].getIndex().moveCoordinates(coordinates[from + k], move);
+            if (move < metricEnds[k])
+                values[to + k] = databases[k].getValueAt(coordinates[to + k], values[from + k]);
+            else
+                values[to + k] = databases[k].getValueAt(coordinates[to + k]);
+            max = Math.max(max, values[to + k]);
+        }
+        return max;
+    }
+}
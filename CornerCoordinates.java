@@ -0,0 +1,69 @@
+/**
+ * This numbers the arrangements of all eight corners by the corner
+ * permutation and corner twist coordinates of <tt>MoveTables</tt>:
+ * <pre>
+ *     permutation * 2187 + twist
+ * </pre>
+ * which are also its coordinates.  A move changes the index by two
+ * table reads, which makes it the fastest numbering for generating and
+ * searching with the corner database.  It has the same 88,179,840
+ * indices as <tt>CubiePattern.allCorners()</tt>, but measures the twists
+ * by slot rather than by cubie, so the two number the arrangements
+ * differently.
+ */
+public class CornerCoordinates implements PatternIndex {
+
+    private CubiePattern pattern = CubiePattern.allCorners();
+
+    public CubiePattern getPattern()
+    {
+        return pattern;
+    }
+
+    public long size()
+    {
+        return (long) MoveTables.NUM_CORNER_PERMUTATIONS * MoveTables.NUM_TWISTS;
+    }
+
+    public long rank(long word)
+    {
+        return (long) MoveTables.cornerPermutation(word) * MoveTables.NUM_TWISTS
+            + MoveTables.twist(word);
+    }
+
+    public long unrank(long index)
+    {
+        long placed = pattern.unrank(index / MoveTables.NUM_TWISTS * MoveTables.NUM_TWISTS);
+        long twists = MoveTables.cornersWithTwist((int) (index % MoveTables.NUM_TWISTS))
+            ^ CubieTables.SOLVED_CORNERS;
+        return placed | twists;
+    }
+
+    public long coordinates(long word)
+    {
+        return rank(word);
+    }
+
+    public long moveCoordinates(long coordinates, int move)
+    {
+        int permutation = (int) (coordinates / MoveTables.NUM_TWISTS);
+        int twist = (int) (coordinates % MoveTables.NUM_TWISTS);
+        return (long) MoveTables.CORNER_PERMUTATION_MOVE[move][permutation] * MoveTables.NUM_TWISTS
+            + MoveTables.TWIST_MOVE[move][twist];
+    }
+
+    public long rankCoordinates(long coordinates)
+    {
+        return coordinates;
+    }
+
+    public long unrankCoordinates(long index)
+    {
+        return index;
+    }
+
+    public int getScheme()
+    {
+        return PatternDatabase.INDEX_CORNER_COORDINATES;
+    }
+}
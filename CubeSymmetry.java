@@ -0,0 +1,285 @@
+/**
+ * This class holds the 48 symmetries of the cube (24 rotations, each
+ * with or without a mirror reflection) and the means of mapping a
+ * state to the least of its symmetric variants.
+ * <p>
+ * Applying symmetry <tt>s</tt> to a state means looking at the whole
+ * cube through <tt>s</tt>: every sticker is carried to its rotated or
+ * reflected position, and takes on the colour of the face that the
+ * rotation or reflection carries its own face to.  The result is again
+ * a legal cube with its centers in place.  Symmetric states are the
+ * same distance from the goal in every <tt>MoveMetric</tt>, since each
+ * metric is closed under the symmetries, so a search needs to keep only
+ * one of them.
+ * <p>
+ * The symmetries are computed from the positions of the stickers in
+ * space: each face of <tt>RubiksCube.FACE_INDEX</tt> is laid out row by
+ * row as seen from outside the cube, with u above f, d below f, l to
+ * the left of f, r to its right, and b to the right of r.  When the
+ * class is loaded with assertions enabled, this layout is checked
+ * against the face turns of <tt>FaceletPermutation</tt>.
+ */
+public final class CubeSymmetry
+{
+    final static int NUM_SYMMETRIES = 48;
+
+    // {outward normal, rightward, upward} direction of each face, as
+    // seen from outside; x points right, y up and z out of the front
+    private final static int[][][] FACE_AXES = new int[][][]
+    {
+        {{0, 0, 1}, {1, 0, 0}, {0, 1, 0}},      // f
+        {{-1, 0, 0}, {0, 0, 1}, {0, 1, 0}},     // l
+        {{1, 0, 0}, {0, 0, -1}, {0, 1, 0}},     // r
+        {{0, 1, 0}, {1, 0, 0}, {0, 0, -1}},     // u
+        {{0, -1, 0}, {1, 0, 0}, {0, 0, 1}},     // d
+        {{0, 0, -1}, {-1, 0, 0}, {0, 1, 0}}     // b
+    };
+
+    // the three axis permutations of the symmetry matrices
+    private final static int[][] AXIS_PERMUTATIONS = new int[][]
+    {
+        {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+
+    // FACELET_MAP[s][p] is where symmetry s carries sticker p,
+    // FACE_MAP[s][f] is where it carries face f
+    final static int[][] FACELET_MAP = new int[NUM_SYMMETRIES][FaceletPermutation.NUM_FACELETS];
+    final static int[][] FACE_MAP = new int[NUM_SYMMETRIES][RubiksCube.NUM_FACES];
+    final static int[] INVERSE = new int[NUM_SYMMETRIES];
+
+    // where symmetry s carries the contents of each slot: the slot they
+    // end up in, and their new field value for each old one
+    final static int[][] CORNER_SLOT = new int[NUM_SYMMETRIES][CubieTables.NUM_CORNERS];
+    final static int[][][] CORNER_FIELD =
+        new int[NUM_SYMMETRIES][CubieTables.NUM_CORNERS][CubieTables.FIELD_MASK + 1];
+    final static int[][] EDGE_SLOT = new int[NUM_SYMMETRIES][CubieTables.NUM_EDGES];
+    final static int[][][] EDGE_FIELD =
+        new int[NUM_SYMMETRIES][CubieTables.NUM_EDGES][CubieTables.FIELD_MASK + 1];
+
+    static
+    {
+        int[][] position = new int[FaceletPermutation.NUM_FACELETS][];
+        for (int p = 0; p < position.length; p++)
+        {
+            position[p] = position(p);
+        }
+
+        int[][][] matrices = new int[NUM_SYMMETRIES][][];
+        for (int s = 0; s < NUM_SYMMETRIES; s++)
+        {
+            matrices[s] = matrix(s);
+            for (int p = 0; p < position.length; p++)
+            {
+                FACELET_MAP[s][p] = find(position, times(matrices[s], position[p]));
+            }
+            for (int f = 0; f < RubiksCube.NUM_FACES; f++)
+            {
+                int center = f * RubiksCube.FACE_SIZE + RubiksCube.FACE_SIZE / 2;
+                FACE_MAP[s][f] = FACELET_MAP[s][center] / RubiksCube.FACE_SIZE;
+            }
+        }
+
+        for (int s = 0; s < NUM_SYMMETRIES; s++)
+        {
+            for (int t = 0; t < NUM_SYMMETRIES; t++)
+            {
+                if (FACELET_MAP[t][FACELET_MAP[s][0]] == 0
+                    && FACELET_MAP[t][FACELET_MAP[s][1]] == 1
+                    && FACELET_MAP[t][FACELET_MAP[s][3]] == 3)
+                    INVERSE[s] = t;
+            }
+            mapSlots(s, CubieTables.CORNER_FACELETS, CORNER_SLOT[s], CORNER_FIELD[s],
+                     CubieTables.CORNER_ORI_SHIFT);
+            mapSlots(s, CubieTables.EDGE_FACELETS, EDGE_SLOT[s], EDGE_FIELD[s],
+                     CubieTables.EDGE_ORI_SHIFT);
+        }
+
+        assert (layoutMatchesTurns(position));
+    }
+
+    private CubeSymmetry()
+    {
+    }
+
+    // the point in space at the middle of sticker p, with the cube
+    // spanning -3 to 3 along each axis
+    private static int[] position(int p)
+    {
+        int[][] axes = FACE_AXES[p / RubiksCube.FACE_SIZE];
+        int right = p % 3 - 1;
+        int up = 1 - (p % RubiksCube.FACE_SIZE) / 3;
+        int[] v = new int[3];
+        for (int i = 0; i < 3; i++)
+        {
+            v[i] = 3 * axes[0][i] + 2 * right * axes[1][i] + 2 * up * axes[2][i];
+        }
+        return v;
+    }
+
+    // symmetry s as a signed permutation matrix; s = 0 is the identity
+    private static int[][] matrix(int s)
+    {
+        int[] perm = AXIS_PERMUTATIONS[s / 8];
+        int[][] m = new int[3][3];
+        for (int i = 0; i < 3; i++)
+        {
+            m[i][perm[i]] = ((s >> i) & 1) == 0 ? 1 : -1;
+        }
+        return m;
+    }
+
+    private static int[] times(int[][] m, int[] v)
+    {
+        int[] result = new int[3];
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                result[i] += m[i][j] * v[j];
+        return result;
+    }
+
+    private static int find(int[][] position, int[] v)
+    {
+        for (int p = 0; p < position.length; p++)
+        {
+            if (position[p][0] == v[0] && position[p][1] == v[1] && position[p][2] == v[2])
+                return p;
+        }
+        throw new IllegalStateException("No sticker at " + v[0] + "," + v[1] + "," + v[2]);
+    }
+
+    // works out, for each slot and each cubie/orientation it could hold,
+    // where symmetry s sends it, by moving its stickers and recolouring them
+    private static void mapSlots(int s, int[][][] slots, int[] slotMap, int[][] fieldMap, int oriShift)
+    {
+        int size = slots[0].length;
+        int[] faceOfSticker = new int[FaceletPermutation.NUM_FACELETS];
+        for (int j = 0; j < slots.length; j++)
+        {
+            slotMap[j] = -1;
+            int moved = FACELET_MAP[s][CubieTables.facelet(slots[j][0])];
+            for (int i = 0; i < slots.length; i++)
+                for (int k = 0; k < size; k++)
+                    if (CubieTables.facelet(slots[i][k]) == moved)
+                        slotMap[j] = i;
+
+            for (int c = 0; c < slots.length; c++)
+            {
+                for (int ori = 0; ori < size; ori++)
+                {
+                    for (int k = 0; k < size; k++)
+                    {
+                        int p = CubieTables.facelet(slots[j][(k + ori) % size]);
+                        faceOfSticker[FACELET_MAP[s][p]] = FACE_MAP[s][slots[c][k][0]];
+                    }
+                    int field = CubieTables.identify(faceOfSticker, slots, slotMap[j]);
+                    fieldMap[j][c | ori << oriShift] = field / size | (field % size) << oriShift;
+                }
+            }
+        }
+    }
+
+    // true if turning each face a quarter clockwise about its normal
+    // moves the stickers the same way FaceletPermutation does
+    private static boolean layoutMatchesTurns(int[][] position)
+    {
+        for (int f = 0; f < RubiksCube.NUM_FACES; f++)
+        {
+            int[] n = FACE_AXES[f][0];
+            FaceletPermutation turn = FaceletPermutation.forMove(2 * f);
+            for (int p = 0; p < position.length; p++)
+            {
+                int[] v = position[p];
+                int target = p;
+                if (v[0] * n[0] + v[1] * n[1] + v[2] * n[2] > 0)
+                {
+                    // clockwise seen from outside is -90 degrees about n
+                    int dot = v[0] * n[0] + v[1] * n[1] + v[2] * n[2];
+                    int[] w = new int[3];
+                    w[0] = -(n[1] * v[2] - n[2] * v[1]) + n[0] * dot;
+                    w[1] = -(n[2] * v[0] - n[0] * v[2]) + n[1] * dot;
+                    w[2] = -(n[0] * v[1] - n[1] * v[0]) + n[2] * dot;
+                    target = find(position, w);
+                }
+                if (turn.get(target) != p)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns true if and only if symmetry <tt>s</tt> reflects the cube. */
+    public static boolean isReflection(int s)
+    {
+        int[][] m = matrix(s);
+        int det = m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+            - m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+            + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+        return det < 0;
+    }
+
+    /** Returns the packed corners seen through symmetry <tt>s</tt>. */
+    static long conjugateCorners(long corners, int s)
+    {
+        int[] slots = CORNER_SLOT[s];
+        int[][] fields = CORNER_FIELD[s];
+        long result = 0;
+        for (int j = 0; j < CubieTables.NUM_CORNERS; j++)
+        {
+            int field = (int) (corners >>> (CubieTables.FIELD_BITS * j)) & CubieTables.FIELD_MASK;
+            result |= (long) fields[j][field] << (CubieTables.FIELD_BITS * slots[j]);
+        }
+        return result;
+    }
+
+    /** Returns the packed edges seen through symmetry <tt>s</tt>. */
+    static long conjugateEdges(long edges, int s)
+    {
+        int[] slots = EDGE_SLOT[s];
+        int[][] fields = EDGE_FIELD[s];
+        long result = 0;
+        for (int j = 0; j < CubieTables.NUM_EDGES; j++)
+        {
+            int field = (int) (edges >>> (CubieTables.FIELD_BITS * j)) & CubieTables.FIELD_MASK;
+            result |= (long) fields[j][field] << (CubieTables.FIELD_BITS * slots[j]);
+        }
+        return result;
+    }
+
+    /** Returns the given state seen through symmetry <tt>s</tt>. */
+    public static State conjugate(State state, int s)
+    {
+        return new State(state.getRubiksCube(),
+                         conjugateCorners(state.getCorners(), s),
+                         conjugateEdges(state.getEdges(), s));
+    }
+
+    /**
+     * Returns the key of the given state under symmetry: the least of
+     * its 48 symmetric variants (ordered by packed corners, then packed
+     * edges), together with the symmetry that produces it.  Symmetric
+     * states get equal keys.
+     */
+    public static SymmetryKey canonicalize(State state)
+    {
+        long corners = state.getCorners();
+        long edges = state.getEdges();
+
+        long bestCorners = corners;
+        long bestEdges = edges;
+        int best = 0;
+        for (int s = 1; s < NUM_SYMMETRIES; s++)
+        {
+            long c = conjugateCorners(corners, s);
+            if (c > bestCorners)
+                continue;
+            long e = conjugateEdges(edges, s);
+            if (c < bestCorners || e < bestEdges)
+            {
+                bestCorners = c;
+                bestEdges = e;
+                best = s;
+            }
+        }
+        return new SymmetryKey(bestCorners, bestEdges, best);
+    }
+}
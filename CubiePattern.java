@@ -0,0 +1,247 @@
+/**
+ * This is the class for representing a pattern of the cube: a set of
+ * corner cubies, or a set of edge cubies, whose slots and orientations
+ * are tracked while all other cubies are ignored.  Each arrangement of
+ * the tracked cubies is numbered by a dense index, which is what a
+ * <tt>PatternDatabase</tt> is indexed by.
+ * <p>
+ * The index of an arrangement is the rank of the slots the tracked
+ * cubies occupy (as an ordered choice of <tt>k</tt> slots out of
+ * <tt>n</tt>) times the number of orientation combinations, plus the
+ * rank of their orientations.  When every cubie of its kind is
+ * tracked the orientation of the last one is implied by the others and
+ * is left out, so the eight corners have 8! * 3^7 = 88,179,840
+ * arrangements, and any six of the twelve edges have 12!/6! * 2^6 =
+ * 42,577,920.  This is the plain <tt>PatternIndex</tt>; see
+ * <tt>SymmetryReducedPattern</tt> for a denser one.
+ * <p>
+ * The coordinates of an arrangement are the positions (as in
+ * <tt>MoveTables</tt>) of the tracked cubies, five bits each, tracked
+ * cubie <tt>t</tt> in bits <tt>5t</tt> and up.  A move updates them
+ * with one table read per tracked cubie, and ranking them needs no
+ * pass over the untracked slots.
+ */
+public class CubiePattern implements PatternIndex {
+
+    private boolean corners;
+    private int[] cubies;
+    private int[] tracked;
+    private int slots;
+    private int orientations;
+    private int oriShift;
+    private int cubieMask;
+    private int freeOrientations;
+    private int filler;
+    private long permutationCount;
+    private long orientationCount;
+
+    /**
+     * Constructs a pattern tracking the given corner cubies (if
+     * <tt>corners</tt> is true) or edge cubies, numbered as in
+     * <tt>CubieTables</tt>.
+     */
+    public CubiePattern(boolean corners, int[] cubies)
+    {
+        this.corners = corners;
+        this.cubies = cubies.clone();
+        slots = corners ? CubieTables.NUM_CORNERS : CubieTables.NUM_EDGES;
+        orientations = corners ? 3 : 2;
+        oriShift = corners ? CubieTables.CORNER_ORI_SHIFT : CubieTables.EDGE_ORI_SHIFT;
+        cubieMask = corners ? CubieTables.CUBIE_MASK_CORNER : CubieTables.CUBIE_MASK_EDGE;
+
+        tracked = new int[slots];
+        java.util.Arrays.fill(tracked, -1);
+        for (int t = 0; t < cubies.length; t++)
+        {
+            if (tracked[cubies[t]] >= 0)
+                throw new IllegalArgumentException("Cubie " + cubies[t] + " listed twice");
+            tracked[cubies[t]] = t;
+        }
+        filler = 0;
+        while (filler < slots && tracked[filler] >= 0)
+            filler++;
+
+        permutationCount = 1;
+        for (int t = 0; t < cubies.length; t++)
+            permutationCount *= slots - t;
+
+        freeOrientations = cubies.length == slots ? slots - 1 : cubies.length;
+        orientationCount = 1;
+        for (int t = 0; t < freeOrientations; t++)
+            orientationCount *= orientations;
+    }
+
+    /** Returns the pattern of all eight corners. */
+    public static CubiePattern allCorners()
+    {
+        return new CubiePattern(true, new int[]{0, 1, 2, 3, 4, 5, 6, 7});
+    }
+
+    /** Returns the pattern of the given edges, numbered as in <tt>CubieTables</tt>. */
+    public static CubiePattern edges(int[] cubies)
+    {
+        return new CubiePattern(false, cubies);
+    }
+
+    /** Returns true if this pattern tracks corners, false if edges. */
+    public boolean isCorners()
+    {
+        return corners;
+    }
+
+    /** Returns the cubies tracked by this pattern. */
+    public int[] getCubies()
+    {
+        return cubies.clone();
+    }
+
+    /** Returns this pattern, which numbers its own arrangements. */
+    public CubiePattern getPattern()
+    {
+        return this;
+    }
+
+    /** Returns the number of arrangements, that is, one more than the largest index. */
+    public long size()
+    {
+        return permutationCount * orientationCount;
+    }
+
+    /**
+     * Returns the number of orientation combinations of the tracked
+     * cubies.  An index divided by this is the rank of the slots they
+     * occupy, and the remainder the rank of their orientations.
+     */
+    public long getOrientationCount()
+    {
+        return orientationCount;
+    }
+
+    public int getScheme()
+    {
+        return PatternDatabase.INDEX_CUBIE_RANK;
+    }
+
+    /** Returns the packed word of the given state that this pattern looks at. */
+    public long word(State state)
+    {
+        return corners ? state.getCorners() : state.getEdges();
+    }
+
+    /** Returns the packed word after applying <tt>move</tt>. */
+    public long move(long word, int move)
+    {
+        return corners ? MoveKernels.corners(word, move) : MoveKernels.edges(word, move);
+    }
+
+    /** Returns the index of the arrangement of the tracked cubies in the given state. */
+    public long rank(State state)
+    {
+        return rank(word(state));
+    }
+
+    /** Returns the index of the arrangement of the tracked cubies in a packed word. */
+    public long rank(long word)
+    {
+        return rankCoordinates(coordinates(word));
+    }
+
+    public long coordinates(long word)
+    {
+        long coordinates = 0;
+        for (int i = 0; i < slots; i++)
+        {
+            int field = (int) (word >>> (CubieTables.FIELD_BITS * i)) & CubieTables.FIELD_MASK;
+            int t = tracked[field & cubieMask];
+            if (t >= 0)
+                coordinates |= (long) (i * orientations + (field >>> oriShift))
+                    << (CubieTables.FIELD_BITS * t);
+        }
+        return coordinates;
+    }
+
+    public long moveCoordinates(long coordinates, int move)
+    {
+        byte[] table = corners ? MoveTables.CORNER_POSITION_MOVE[move]
+                               : MoveTables.EDGE_POSITION_MOVE[move];
+        long result = 0;
+        for (int t = 0; t < cubies.length; t++)
+        {
+            int position = (int) (coordinates >>> (CubieTables.FIELD_BITS * t)) & CubieTables.FIELD_MASK;
+            result |= (long) table[position] << (CubieTables.FIELD_BITS * t);
+        }
+        return result;
+    }
+
+    public long rankCoordinates(long coordinates)
+    {
+        long perm = 0;
+        long ori = 0;
+        int used = 0;
+        for (int t = 0; t < cubies.length; t++)
+        {
+            int position = (int) (coordinates >>> (CubieTables.FIELD_BITS * t)) & CubieTables.FIELD_MASK;
+            int s = position / orientations;
+            perm = perm * (slots - t) + s - Integer.bitCount(used & ((1 << s) - 1));
+            used |= 1 << s;
+            if (t < freeOrientations)
+                ori = ori * orientations + position % orientations;
+        }
+        return perm * orientationCount + ori;
+    }
+
+    public long unrankCoordinates(long index)
+    {
+        return coordinates(unrank(index));
+    }
+
+    /**
+     * Returns a packed word with the tracked cubies arranged as given
+     * by <tt>index</tt>.  The untracked slots hold an untracked cubie
+     * in orientation zero, which moves carry around harmlessly.
+     */
+    public long unrank(long index)
+    {
+        int k = cubies.length;
+        long perm = index / orientationCount;
+        long ori = index % orientationCount;
+
+        int[] oriOf = new int[k];
+        int sum = 0;
+        for (int t = freeOrientations - 1; t >= 0; t--)
+        {
+            oriOf[t] = (int) (ori % orientations);
+            ori /= orientations;
+            sum += oriOf[t];
+        }
+        if (freeOrientations < k)
+            oriOf[k - 1] = (orientations - sum % orientations) % orientations;
+
+        int[] digit = new int[k];
+        for (int t = k - 1; t >= 0; t--)
+        {
+            digit[t] = (int) (perm % (slots - t));
+            perm /= slots - t;
+        }
+
+        long word = 0;
+        int used = 0;
+        for (int t = 0; t < k; t++)
+        {
+            int s = 0;
+            for (int d = digit[t]; ; s++)
+            {
+                if ((used & (1 << s)) == 0 && d-- == 0)
+                    break;
+            }
+            used |= 1 << s;
+            word |= (long) (cubies[t] | oriOf[t] << oriShift) << (CubieTables.FIELD_BITS * s);
+        }
+        for (int s = 0; s < slots; s++)
+        {
+            if ((used & (1 << s)) == 0)
+                word |= (long) filler << (CubieTables.FIELD_BITS * s);
+        }
+        return word;
+    }
+}
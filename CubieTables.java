@@ -0,0 +1,481 @@
+import java.util.*;
+
+/**
+ * This class holds the cubie-level model of the rubiks cube that is
+ * used by <tt>State</tt>.  Rather than storing all 54 stickers, a
+ * state stores which corner and edge cubie sits in each slot and how
+ * it is twisted or flipped there.  The eight corners are packed into
+ * one <tt>long</tt> and the twelve edges into another, five bits per
+ * slot: the low bits hold the cubie and the high bits its orientation.
+ * <p>
+ * Corners are numbered urf, ufl, ulb, ubr, dfr, dlf, dbl, drb and
+ * edges ur, uf, ul, ub, dr, df, dl, db, fr, fl, bl, br.  The
+ * orientation of a cubie is the index (into the slot's facelet list
+ * below) of the facelet showing the cubie's reference sticker, which
+ * is its u/d sticker, or for the four middle edges its f/b sticker.
+ * <p>
+ * The move transition tables are not written out by hand; they are
+ * derived when the class is loaded from the compiled facelet
+ * permutations of <tt>FaceletPermutation</tt>, and so ultimately from
+ * <tt>RubiksCube.turns</tt> and <tt>RubiksCube.CW_ROTATION</tt>, so the
+ * two representations can never disagree.
+ */
+public final class CubieTables
+{
+    final static int NUM_CORNERS = 8;
+    final static int NUM_EDGES = 12;
+    final static int FIELD_BITS = 5;
+    final static int FIELD_MASK = 31;
+    final static int CORNER_ORI_SHIFT = 3;
+    final static int EDGE_ORI_SHIFT = 4;
+    final static int CUBIE_MASK_CORNER = 7;
+    final static int CUBIE_MASK_EDGE = 15;
+
+    // the 12 quarter turns come first among the moves: move 2 * face is
+    // clockwise, move 2 * face + 1 is counterclockwise
+    final static int NUM_QUARTER_TURNS = 2 * RubiksCube.NUM_FACES;
+
+    // {face, sticker} of each corner slot, reference sticker first,
+    // then clockwise around the corner
+    final static int[][][] CORNER_FACELETS = new int[][][]
+    {
+        {{3, 8}, {2, 0}, {0, 2}},   // urf
+        {{3, 6}, {0, 0}, {1, 2}},   // ufl
+        {{3, 0}, {1, 0}, {5, 2}},   // ulb
+        {{3, 2}, {5, 0}, {2, 2}},   // ubr
+        {{4, 2}, {0, 8}, {2, 6}},   // dfr
+        {{4, 0}, {1, 8}, {0, 6}},   // dlf
+        {{4, 6}, {5, 8}, {1, 6}},   // dbl
+        {{4, 8}, {2, 8}, {5, 6}}    // drb
+    };
+
+    // {face, sticker} of each edge slot, reference sticker first
+    final static int[][][] EDGE_FACELETS = new int[][][]
+    {
+        {{3, 5}, {2, 1}},   // ur
+        {{3, 7}, {0, 1}},   // uf
+        {{3, 3}, {1, 1}},   // ul
+        {{3, 1}, {5, 1}},   // ub
+        {{4, 5}, {2, 7}},   // dr
+        {{4, 1}, {0, 7}},   // df
+        {{4, 3}, {1, 7}},   // dl
+        {{4, 7}, {5, 7}},   // db
+        {{0, 5}, {2, 3}},   // fr
+        {{0, 3}, {1, 5}},   // fl
+        {{5, 5}, {1, 3}},   // bl
+        {{5, 3}, {2, 5}}    // br
+    };
+
+    final static long SOLVED_CORNERS = solved(NUM_CORNERS);
+    final static long SOLVED_EDGES = solved(NUM_EDGES);
+
+    // CORNER_TWIST[d][field] is <field> with its twist increased by d
+    final static int[][] CORNER_TWIST = new int[3][FIELD_MASK + 1];
+
+    // per move: slot each cubie comes from, and the twist/flip it picks up
+    final static int[][] CORNER_FROM = new int[RubiksCube.NUM_MOVES][NUM_CORNERS];
+    final static int[][] CORNER_DELTA = new int[RubiksCube.NUM_MOVES][NUM_CORNERS];
+    final static int[][] EDGE_FROM = new int[RubiksCube.NUM_MOVES][NUM_EDGES];
+    final static int[][] EDGE_DELTA = new int[RubiksCube.NUM_MOVES][NUM_EDGES];
+
+    // per move: the slots whose contents the move changes
+    final static int[][] CORNERS_MOVED = new int[RubiksCube.NUM_MOVES][];
+    final static int[][] EDGES_MOVED = new int[RubiksCube.NUM_MOVES][];
+
+    // random keys for Zobrist hashing, one per slot and field value
+    final static long[][] ZOBRIST_CORNER = new long[NUM_CORNERS][FIELD_MASK + 1];
+    final static long[][] ZOBRIST_EDGE = new long[NUM_EDGES][FIELD_MASK + 1];
+
+    static
+    {
+        for (int d = 0; d < 3; d++)
+        {
+            for (int f = 0; f <= FIELD_MASK; f++)
+            {
+                int ori = (f >>> CORNER_ORI_SHIFT) % 3;
+                CORNER_TWIST[d][f] = (f & CUBIE_MASK_CORNER)
+                    | (((ori + d) % 3) << CORNER_ORI_SHIFT);
+            }
+        }
+
+        for (int m = 0; m < RubiksCube.NUM_MOVES; m++)
+        {
+            FaceletPermutation perm = FaceletPermutation.forMove(m);
+            deriveTransitions(perm, CORNER_FACELETS, CORNER_FROM[m], CORNER_DELTA[m]);
+            deriveTransitions(perm, EDGE_FACELETS, EDGE_FROM[m], EDGE_DELTA[m]);
+            CORNERS_MOVED[m] = movedSlots(CORNER_FROM[m], CORNER_DELTA[m]);
+            EDGES_MOVED[m] = movedSlots(EDGE_FROM[m], EDGE_DELTA[m]);
+        }
+
+        // fixed seed, so hashes are the same from one run to the next
+        Random random = new Random(0x5eedcafeL);
+        for (int i = 0; i < NUM_CORNERS; i++)
+            for (int f = 0; f <= FIELD_MASK; f++)
+                ZOBRIST_CORNER[i][f] = random.nextLong();
+        for (int i = 0; i < NUM_EDGES; i++)
+            for (int f = 0; f <= FIELD_MASK; f++)
+                ZOBRIST_EDGE[i][f] = random.nextLong();
+    }
+
+    private CubieTables()
+    {
+    }
+
+    // the packed word with cubie i in slot i, unturned
+    private static long solved(int slots)
+    {
+        long packed = 0;
+        for (int i = 0; i < slots; i++)
+        {
+            packed |= (long) i << (FIELD_BITS * i);
+        }
+        return packed;
+    }
+
+    // index of facelet <sticker> of face <face> in a flat 54-sticker layout
+    static int facelet(int[] faceAndSticker)
+    {
+        return faceAndSticker[0] * RubiksCube.FACE_SIZE + faceAndSticker[1];
+    }
+
+    // for each slot, find which slot its new cubie comes from and by how
+    // much that cubie's reference sticker shifts along the slot's facelets
+    private static void deriveTransitions(FaceletPermutation perm, int[][][] slots,
+                                          int[] from, int[] delta)
+    {
+        int size = slots[0].length;
+        for (int i = 0; i < slots.length; i++)
+        {
+            int source = perm.get(facelet(slots[i][0]));
+            from[i] = -1;
+            for (int j = 0; j < slots.length && from[i] < 0; j++)
+            {
+                for (int k = 0; k < size; k++)
+                {
+                    if (facelet(slots[j][k]) == source)
+                    {
+                        from[i] = j;
+                        delta[i] = (size - k) % size;
+                    }
+                }
+            }
+            assert (from[i] >= 0);
+        }
+    }
+
+    // the slots that a move with these transitions does not leave alone
+    private static int[] movedSlots(int[] from, int[] delta)
+    {
+        int count = 0;
+        for (int i = 0; i < from.length; i++)
+            if (from[i] != i || delta[i] != 0)
+                count++;
+
+        int[] moved = new int[count];
+        count = 0;
+        for (int i = 0; i < from.length; i++)
+            if (from[i] != i || delta[i] != 0)
+                moved[count++] = i;
+        return moved;
+    }
+
+    /**
+     * Returns the 64-bit Zobrist hash of the given packed corners and
+     * edges, that is, the exclusive or of the keys of every slot's
+     * contents.
+     */
+    static long zobrist(long corners, long edges)
+    {
+        long hash = 0;
+        for (int i = 0; i < NUM_CORNERS; i++)
+            hash ^= ZOBRIST_CORNER[i][(int) (corners >>> (FIELD_BITS * i)) & FIELD_MASK];
+        for (int i = 0; i < NUM_EDGES; i++)
+            hash ^= ZOBRIST_EDGE[i][(int) (edges >>> (FIELD_BITS * i)) & FIELD_MASK];
+        return hash;
+    }
+
+    /**
+     * Returns the Zobrist hash after <tt>move</tt> took the cube from
+     * the old packed words to the new ones, given the old hash.  Only
+     * the slots the move touches are rehashed.
+     */
+    static long zobristAfterMove(long hash, int move,
+                                 long oldCorners, long oldEdges,
+                                 long newCorners, long newEdges)
+    {
+        for (int i : CORNERS_MOVED[move])
+        {
+            int shift = FIELD_BITS * i;
+            hash ^= ZOBRIST_CORNER[i][(int) (oldCorners >>> shift) & FIELD_MASK]
+                ^ ZOBRIST_CORNER[i][(int) (newCorners >>> shift) & FIELD_MASK];
+        }
+        for (int i : EDGES_MOVED[move])
+        {
+            int shift = FIELD_BITS * i;
+            hash ^= ZOBRIST_EDGE[i][(int) (oldEdges >>> shift) & FIELD_MASK]
+                ^ ZOBRIST_EDGE[i][(int) (newEdges >>> shift) & FIELD_MASK];
+        }
+        return hash;
+    }
+
+    /** Returns the packed corners after applying <tt>move</tt>. */
+    static long moveCorners(long corners, int move)
+    {
+        int[] from = CORNER_FROM[move];
+        int[] delta = CORNER_DELTA[move];
+        long result = 0;
+        for (int i = 0; i < NUM_CORNERS; i++)
+        {
+            int field = (int) (corners >>> (FIELD_BITS * from[i])) & FIELD_MASK;
+            result |= (long) CORNER_TWIST[delta[i]][field] << (FIELD_BITS * i);
+        }
+        return result;
+    }
+
+    /** Returns the packed edges after applying <tt>move</tt>. */
+    static long moveEdges(long edges, int move)
+    {
+        int[] from = EDGE_FROM[move];
+        int[] delta = EDGE_DELTA[move];
+        long result = 0;
+        for (int i = 0; i < NUM_EDGES; i++)
+        {
+            long field = (edges >>> (FIELD_BITS * from[i])) & FIELD_MASK;
+            result |= (field ^ (delta[i] << EDGE_ORI_SHIFT)) << (FIELD_BITS * i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the packed corners of the product of two cubes: the cube
+     * reached by making the moves of <tt>a</tt> and then those of
+     * <tt>b</tt>, where each is given by the corners its moves produce
+     * from the solved cube.
+     */
+    static long multiplyCorners(long a, long b)
+    {
+        long result = 0;
+        for (int i = 0; i < NUM_CORNERS; i++)
+        {
+            int field = (int) (b >>> (FIELD_BITS * i)) & FIELD_MASK;
+            int from = (int) (a >>> (FIELD_BITS * (field & CUBIE_MASK_CORNER))) & FIELD_MASK;
+            result |= (long) CORNER_TWIST[field >>> CORNER_ORI_SHIFT][from] << (FIELD_BITS * i);
+        }
+        return result;
+    }
+
+    /** Returns the packed edges of the product of two cubes, as above. */
+    static long multiplyEdges(long a, long b)
+    {
+        long result = 0;
+        for (int i = 0; i < NUM_EDGES; i++)
+        {
+            int field = (int) (b >>> (FIELD_BITS * i)) & FIELD_MASK;
+            long from = (a >>> (FIELD_BITS * (field & CUBIE_MASK_EDGE))) & FIELD_MASK;
+            result |= (from ^ (field & ~CUBIE_MASK_EDGE)) << (FIELD_BITS * i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the packed corners of the inverse of a cube, whose
+     * product with the cube either way round is the solved cube.
+     */
+    static long invertCorners(long corners)
+    {
+        long result = 0;
+        for (int i = 0; i < NUM_CORNERS; i++)
+        {
+            int cubie = cubie(corners, i, CUBIE_MASK_CORNER);
+            int ori = orientation(corners, i, CORNER_ORI_SHIFT);
+            result |= (long) (i | ((3 - ori) % 3) << CORNER_ORI_SHIFT) << (FIELD_BITS * cubie);
+        }
+        return result;
+    }
+
+    /** Returns the packed edges of the inverse of a cube. */
+    static long invertEdges(long edges)
+    {
+        long result = 0;
+        for (int i = 0; i < NUM_EDGES; i++)
+        {
+            int cubie = cubie(edges, i, CUBIE_MASK_EDGE);
+            int ori = orientation(edges, i, EDGE_ORI_SHIFT);
+            result |= (long) (i | ori << EDGE_ORI_SHIFT) << (FIELD_BITS * cubie);
+        }
+        return result;
+    }
+
+    /** Returns the cubie held in <tt>slot</tt> of a packed word. */
+    static int cubie(long packed, int slot, int cubieMask)
+    {
+        return (int) (packed >>> (FIELD_BITS * slot)) & cubieMask;
+    }
+
+    /** Returns the orientation of the cubie in <tt>slot</tt> of a packed word. */
+    static int orientation(long packed, int slot, int oriShift)
+    {
+        return (int) (packed >>> (FIELD_BITS * slot + oriShift)) & (FIELD_MASK >>> oriShift);
+    }
+
+    /**
+     * Converts a facelet description of a cube (six faces of nine
+     * stickers, in the face order of <tt>RubiksCube.FACE_INDEX</tt>) to
+     * packed corners and edges, returned as a two-element array.  The
+     * colour of each face is taken from its center sticker.  An
+     * <tt>IllegalArgumentException</tt> is thrown if some slot holds a
+     * combination of colours that no cubie has.
+     */
+    static long[] fromFaces(int[][] faces)
+    {
+        int[] faceOfSticker = new int[RubiksCube.NUM_FACES * RubiksCube.FACE_SIZE];
+        for (int i = 0; i < RubiksCube.NUM_FACES; i++)
+        {
+            for (int j = 0; j < RubiksCube.FACE_SIZE; j++)
+            {
+                faceOfSticker[i * RubiksCube.FACE_SIZE + j] = -1;
+                for (int c = 0; c < RubiksCube.NUM_FACES; c++)
+                {
+                    if (faces[i][j] == faces[c][RubiksCube.FACE_SIZE / 2])
+                    {
+                        faceOfSticker[i * RubiksCube.FACE_SIZE + j] = c;
+                    }
+                }
+            }
+        }
+
+        long corners = 0;
+        for (int i = 0; i < NUM_CORNERS; i++)
+        {
+            int field = identify(faceOfSticker, CORNER_FACELETS, i);
+            if (field < 0)
+                throw new IllegalArgumentException("Unrecognizable corner at slot " + i);
+            corners |= (long) (field / 3 | (field % 3) << CORNER_ORI_SHIFT) << (FIELD_BITS * i);
+        }
+
+        long edges = 0;
+        for (int i = 0; i < NUM_EDGES; i++)
+        {
+            int field = identify(faceOfSticker, EDGE_FACELETS, i);
+            if (field < 0)
+                throw new IllegalArgumentException("Unrecognizable edge at slot " + i);
+            edges |= (long) (field / 2 | (field % 2) << EDGE_ORI_SHIFT) << (FIELD_BITS * i);
+        }
+
+        return new long[]{corners, edges};
+    }
+
+    // returns cubie * size + orientation of the cubie showing in <slot>,
+    // or -1 if its stickers match no cubie
+    static int identify(int[] faceOfSticker, int[][][] slots, int slot)
+    {
+        int size = slots[slot].length;
+        for (int c = 0; c < slots.length; c++)
+        {
+            for (int ori = 0; ori < size; ori++)
+            {
+                boolean match = true;
+                for (int k = 0; k < size && match; k++)
+                {
+                    int seen = faceOfSticker[facelet(slots[slot][(k + ori) % size])];
+                    match = seen == slots[c][k][0];
+                }
+                if (match)
+                {
+                    return c * size + ori;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the parity of the permutation of the cubies in a packed
+     * word: 0 if it is even, 1 if it is odd.
+     */
+    static int permutationParity(long packed, int slots, int cubieMask)
+    {
+        int parity = 0;
+        for (int i = 0; i < slots; i++)
+            for (int j = i + 1; j < slots; j++)
+                if (cubie(packed, i, cubieMask) > cubie(packed, j, cubieMask))
+                    parity ^= 1;
+        return parity;
+    }
+
+    /**
+     * Checks that packed corners and edges describe a cube that can be
+     * solved, and throws an <tt>IllegalArgumentException</tt> saying
+     * why if they do not.  Every cubie must appear exactly once, the
+     * corner twists must add up to a multiple of three, the edge flips
+     * to a multiple of two, and the corner and edge permutations must
+     * have the same parity.
+     */
+    static void checkSolvable(long corners, long edges)
+    {
+        int seen = 0;
+        int twist = 0;
+        for (int i = 0; i < NUM_CORNERS; i++)
+        {
+            seen |= 1 << cubie(corners, i, CUBIE_MASK_CORNER);
+            twist += orientation(corners, i, CORNER_ORI_SHIFT);
+        }
+        if (seen != (1 << NUM_CORNERS) - 1)
+            throw new IllegalArgumentException("Some corner appears twice");
+        if (twist % 3 != 0)
+            throw new IllegalArgumentException("A corner is twisted");
+
+        seen = 0;
+        int flip = 0;
+        for (int i = 0; i < NUM_EDGES; i++)
+        {
+            seen |= 1 << cubie(edges, i, CUBIE_MASK_EDGE);
+            flip += orientation(edges, i, EDGE_ORI_SHIFT);
+        }
+        if (seen != (1 << NUM_EDGES) - 1)
+            throw new IllegalArgumentException("Some edge appears twice");
+        if (flip % 2 != 0)
+            throw new IllegalArgumentException("An edge is flipped");
+
+        if (permutationParity(corners, NUM_CORNERS, CUBIE_MASK_CORNER)
+            != permutationParity(edges, NUM_EDGES, CUBIE_MASK_EDGE))
+            throw new IllegalArgumentException("Two cubies are swapped");
+    }
+
+    /**
+     * Converts packed corners and edges back to a facelet description,
+     * colouring each sticker with <tt>colors[face]</tt> of the face its
+     * cubie belongs on.
+     */
+    static int[][] toFaces(long corners, long edges, int[] colors)
+    {
+        int[][] faces = new int[RubiksCube.NUM_FACES][RubiksCube.FACE_SIZE];
+        for (int i = 0; i < RubiksCube.NUM_FACES; i++)
+        {
+            faces[i][RubiksCube.FACE_SIZE / 2] = colors[i];
+        }
+
+        for (int i = 0; i < NUM_CORNERS; i++)
+        {
+            int c = cubie(corners, i, CUBIE_MASK_CORNER);
+            int ori = orientation(corners, i, CORNER_ORI_SHIFT);
+            for (int k = 0; k < 3; k++)
+            {
+                int[] to = CORNER_FACELETS[i][(k + ori) % 3];
+                faces[to[0]][to[1]] = colors[CORNER_FACELETS[c][k][0]];
+            }
+        }
+
+        for (int i = 0; i < NUM_EDGES; i++)
+        {
+            int c = cubie(edges, i, CUBIE_MASK_EDGE);
+            int ori = orientation(edges, i, EDGE_ORI_SHIFT);
+            for (int k = 0; k < 2; k++)
+            {
+                int[] to = EDGE_FACELETS[i][(k + ori) % 2];
+                faces[to[0]][to[1]] = colors[EDGE_FACELETS[c][k][0]];
+            }
+        }
+        return faces;
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * This is the class for representing a move, or a whole sequence of
+ * moves, as a single permutation of the 54 stickers of the cube.  The
+ * stickers are numbered face by face in the order of
+ * <tt>RubiksCube.FACE_INDEX</tt>, nine to a face, and a cube is then
+ * just a flat <tt>byte[54]</tt> giving the face each sticker's colour
+ * belongs to.
+ * <p>
+ * Each quarter turn is compiled once, when the class is loaded, from
+ * the cycles in <tt>RubiksCube.turns</tt> and <tt>CW_ROTATION</tt>;
+ * half turns and slice turns are then composed from quarter turns.
+ * Permutations compose, so a scramble or a solution path of any
+ * length can be folded into one permutation and then applied to a
+ * cube with a single pass over its 54 stickers.
+ * <p>
+ * Permutations are immutable.  Entry <tt>p</tt> is the position whose
+ * sticker ends up at position <tt>p</tt>.
+ */
+public final class FaceletPermutation
+{
+    final static int NUM_FACELETS = RubiksCube.NUM_FACES * RubiksCube.FACE_SIZE;
+
+    /** The permutation that leaves every sticker where it is. */
+    public final static FaceletPermutation IDENTITY = new FaceletPermutation(identity());
+
+    // the compiled moves, indexed like RubiksCube.MOVE_NAMES
+    private final static FaceletPermutation[] MOVES =
+        new FaceletPermutation[RubiksCube.NUM_MOVES];
+
+    static
+    {
+        for (int m = 0; m < RubiksCube.FIRST_HALF_TURN; m++)
+        {
+            MOVES[m] = compile(m / 2, m % 2 == 0);
+        }
+        for (int f = 0; f < RubiksCube.NUM_FACES; f++)
+        {
+            MOVES[RubiksCube.FIRST_HALF_TURN + f] = MOVES[2 * f].then(MOVES[2 * f]);
+        }
+        for (int i = 0; i < RubiksCube.SLICE_TURNS.length; i++)
+        {
+            int[] pair = RubiksCube.SLICE_TURNS[i];
+            MOVES[RubiksCube.FIRST_SLICE_TURN + i] = MOVES[pair[0]].then(MOVES[pair[1]]);
+        }
+    }
+
+    private final byte[] perm;
+
+    private FaceletPermutation(byte[] perm)
+    {
+        this.perm = perm;
+    }
+
+    private static byte[] identity()
+    {
+        byte[] perm = new byte[NUM_FACELETS];
+        for (int p = 0; p < NUM_FACELETS; p++)
+        {
+            perm[p] = (byte) p;
+        }
+        return perm;
+    }
+
+    // runs the cycles of RubiksCube.turns over a cube whose stickers
+    // are labelled with their own positions
+    private static FaceletPermutation compile(int face, boolean clockwise)
+    {
+        byte[] perm = identity();
+
+        int base = face * RubiksCube.FACE_SIZE;
+        for (int i = 0; i < RubiksCube.CW_ROTATION.length; i++)
+        {
+            if (clockwise)
+            {
+                perm[base + RubiksCube.CW_ROTATION[i]] = (byte) (base + i);
+            }
+            else
+            {
+                perm[base + i] = (byte) (base + RubiksCube.CW_ROTATION[i]);
+            }
+        }
+
+        int[][] turn = RubiksCube.turns[face];
+        for (int to = 0; to < turn.length; to++)
+        {
+            int from = clockwise
+                ? (to == 0 ? turn.length - 1 : to - 1)
+                : (to == turn.length - 1 ? 0 : to + 1);
+            for (int k = 1; k < turn[to].length; k++)
+            {
+                perm[turn[to][0] * RubiksCube.FACE_SIZE + turn[to][k]] =
+                    (byte) (turn[from][0] * RubiksCube.FACE_SIZE + turn[from][k]);
+            }
+        }
+        return new FaceletPermutation(perm);
+    }
+
+    /**
+     * Returns the permutation of <tt>move</tt>, an index into
+     * <tt>RubiksCube.MOVE_NAMES</tt>.
+     */
+    public static FaceletPermutation forMove(int move)
+    {
+        return MOVES[move];
+    }
+
+    /**
+     * Returns the single permutation that has the same effect as
+     * making the given moves in order.
+     */
+    public static FaceletPermutation of(int[] moves)
+    {
+        FaceletPermutation result = IDENTITY;
+        for (int i = 0; i < moves.length; i++)
+        {
+            result = result.then(MOVES[moves[i]]);
+        }
+        return result;
+    }
+
+    /** Returns the position whose sticker this permutation moves to <tt>p</tt>. */
+    public int get(int p)
+    {
+        return perm[p];
+    }
+
+    /**
+     * Returns the permutation that first does this permutation and
+     * then <tt>next</tt>.
+     */
+    public FaceletPermutation then(FaceletPermutation next)
+    {
+        byte[] composed = new byte[NUM_FACELETS];
+        for (int p = 0; p < NUM_FACELETS; p++)
+        {
+            composed[p] = perm[next.perm[p]];
+        }
+        return new FaceletPermutation(composed);
+    }
+
+    /** Returns the permutation that undoes this one. */
+    public FaceletPermutation inverse()
+    {
+        byte[] inverted = new byte[NUM_FACELETS];
+        for (int p = 0; p < NUM_FACELETS; p++)
+        {
+            inverted[perm[p]] = (byte) p;
+        }
+        return new FaceletPermutation(inverted);
+    }
+
+    /**
+     * Applies this permutation to a cube given as a flat array of 54
+     * stickers and returns the resulting cube.  The argument is not
+     * changed.
+     */
+    public byte[] apply(byte[] facelets)
+    {
+        byte[] result = new byte[NUM_FACELETS];
+        for (int p = 0; p < NUM_FACELETS; p++)
+        {
+            result[p] = facelets[perm[p]];
+        }
+        return result;
+    }
+
+    /**
+     * Converts a cube given as six faces of nine stickers to the flat
+     * form, replacing each colour by the index of the face whose center
+     * has that colour.
+     */
+    public static byte[] toFacelets(int[][] faces)
+    {
+        byte[] facelets = new byte[NUM_FACELETS];
+        for (int i = 0; i < RubiksCube.NUM_FACES; i++)
+        {
+            for (int j = 0; j < RubiksCube.FACE_SIZE; j++)
+            {
+                for (int c = 0; c < RubiksCube.NUM_FACES; c++)
+                {
+                    if (faces[i][j] == faces[c][RubiksCube.FACE_SIZE / 2])
+                    {
+                        facelets[i * RubiksCube.FACE_SIZE + j] = (byte) c;
+                    }
+                }
+            }
+        }
+        return facelets;
+    }
+
+    /**
+     * Converts a flat cube back to six faces of nine stickers, painting
+     * the stickers that belong on face <tt>i</tt> with
+     * <tt>colors[i]</tt>.
+     */
+    public static int[][] toFaces(byte[] facelets, int[] colors)
+    {
+        int[][] faces = new int[RubiksCube.NUM_FACES][RubiksCube.FACE_SIZE];
+        for (int p = 0; p < NUM_FACELETS; p++)
+        {
+            faces[p / RubiksCube.FACE_SIZE][p % RubiksCube.FACE_SIZE] = colors[facelets[p]];
+        }
+        return faces;
+    }
+
+    /**
+     * Returns true if and only if making the moves of this permutation
+     * from the given flat cube leaves every face a single colour.
+     * This is how a solution path is checked without replaying it
+     * state by state.
+     */
+    public boolean solves(byte[] facelets)
+    {
+        for (int p = 0; p < NUM_FACELETS; p++)
+        {
+            if (facelets[perm[p]] != p / RubiksCube.FACE_SIZE)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns true if and only if <tt>o</tt> is the same permutation. */
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof FaceletPermutation))
+            return false;
+        return java.util.Arrays.equals(perm, ((FaceletPermutation) o).perm);
+    }
+
+    public int hashCode()
+    {
+        return java.util.Arrays.hashCode(perm);
+    }
+}
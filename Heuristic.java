@@ -8,4 +8,17 @@ public interface Heuristic {
 
     /** Returns the value of the heuristic function at the given state. */
     public int getValue(State state);
+
+    /**
+     * Stores the value of the heuristic function at <tt>states[i]</tt>
+     * in <tt>values[i]</tt>, for every state given, such as all the
+     * children of a node.  Implementations may evaluate the states
+     * together, faster than one at a time; by default they are
+     * evaluated one at a time.
+     */
+    public default void getValues(State[] states, int[] values)
+    {
+        for (int i = 0; i < states.length; i++)
+            values[i] = getValue(states[i]);
+    }
 }
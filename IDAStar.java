@@ -0,0 +1,138 @@
+/**
+ * This is the class that performs iterative-deepening A* (IDA*) search
+ * on a given rubiks cube with a given heuristic.  Like <tt>AStar</tt>,
+ * the search is carried out by the constructor, and the solution is
+ * returned in the <tt>path</tt> and <tt>moves</tt> fields, which are
+ * <tt>null</tt> if there is none.
+ * <p>
+ * Each iteration is a depth-first search that cuts off every state
+ * whose depth plus heuristic value exceeds a threshold; the next
+ * iteration raises the threshold to the least value that was cut off.
+ * With an admissible heuristic the first solution found is a shortest
+ * one.  Unlike <tt>AStar</tt> nothing is kept of the states already
+ * searched: a single scratch <tt>State</tt> is walked through the tree
+ * by making and taking back moves in place, and the search keeps only
+ * the moves on the current path and the <tt>MovePruning</tt> state
+ * after each.  Memory is proportional to the solution length and no
+ * object is allocated per state searched, which is what makes solves
+ * of 15 to 20 moves possible.  When the heuristic is made of pattern
+ * databases, a <tt>CoordinateStack</tt> keeps their coordinates along
+ * the path too, so each child is looked up from its parent's
+ * coordinates rather than from its packed cubies.  The price is that states reached by
+ * different paths are searched again, which the move pruning keeps to
+ * a minimum, and that each iteration repeats the ones before it.
+ */
+public class IDAStar {
+
+    // larger than any threshold a search can return
+    private final static int INFINITY = Integer.MAX_VALUE;
+
+    /** The solution path is stored here */
+    public State[] path;
+
+    /**
+     * The moves of the solution are stored here, one fewer than the
+     * states of <tt>path</tt>, in the metric of the cube searched.
+     */
+    public int[] moves;
+
+    private RubiksCube puzzle;
+    private Heuristic heuristic;
+    private MovePruning pruning;
+    private int[] metricMoves;
+    private State state;
+    private CoordinateStack coordinates;
+    private int[] stack;
+    private int iterations;
+
+    /**
+     * This is the constructor that performs IDA* search to compute a
+     * solution for the given cube using the given heuristic.
+     */
+    public IDAStar(RubiksCube puzzle, Heuristic heuristic)
+    {
+        this.puzzle = puzzle;
+        this.heuristic = heuristic;
+        pruning = puzzle.getMoveMetric().getPruning();
+        metricMoves = pruning.getMoves();
+
+        State initial = puzzle.getInitNode().getState();
+        state = new State(puzzle, initial.getCorners(), initial.getEdges());
+
+        coordinates = CoordinateStack.of(heuristic);
+        int h = coordinates != null ? coordinates.setRoot(state) : heuristic.getValue(state);
+        int threshold = h;
+        while (threshold != INFINITY)
+        {
+            iterations++;
+            stack = new int[threshold + 1];
+            int next = search(0, threshold, MovePruning.START, h);
+            if (next < 0)
+            {
+                solution(initial, -1 - next);
+                return;
+            }
+            threshold = next;
+        }
+    }
+
+    /** Returns the number of iterations, that is, of thresholds tried. */
+    public int getIterations()
+    {
+        return iterations;
+    }
+
+    // searches below the scratch state, which is <depth> moves from the
+    // start and has heuristic value <h>, and returns the least f-value
+    // over the threshold that was cut off; or, when a solution is found,
+    // -1 - its length, leaving the scratch state solved and its moves on
+    // the stack
+    private int search(int depth, int threshold, int pruneState, int h)
+    {
+        int f = depth + h;
+        if (f > threshold)
+            return f;
+        if (state.isGoal())
+            return -1 - depth;
+
+        int least = INFINITY;
+        int children = 0;
+        for (int i = 0; i < metricMoves.length; i++)
+        {
+            int next = pruning.next(pruneState, i);
+            if (next < 0)
+                continue;
+            int m = metricMoves[i];
+            children++;
+            state.apply(m);
+            stack[depth] = m;
+            int childH = coordinates != null ? coordinates.push(depth, m) : heuristic.getValue(state);
+            int t = search(depth + 1, threshold, next, childH);
+            if (t < 0)
+            {
+                puzzle.incrementSearchCount(children);
+                return t;
+            }
+            state.undo(m);
+            least = Math.min(least, t);
+        }
+        puzzle.incrementSearchCount(children);
+        return least;
+    }
+
+    // fills in path and moves from the first <length> moves on the stack
+    private void solution(State initial, int length)
+    {
+        moves = java.util.Arrays.copyOf(stack, length);
+        path = new State[length + 1];
+        path[0] = initial;
+        long corners = initial.getCorners();
+        long edges = initial.getEdges();
+        for (int i = 0; i < length; i++)
+        {
+            corners = MoveKernels.corners(corners, moves[i]);
+            edges = MoveKernels.edges(edges, moves[i]);
+            path[i + 1] = new State(puzzle, corners, edges);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * This is the cube analogue of the Manhattan distance heuristic.  For
+ * every cubie, in every slot and orientation it could be in, a small
+ * table gives the fewest moves that bring that cubie home on its own,
+ * ignoring all the others.  These tables are computed once, by
+ * breadth-first search over the 24 placements of a single corner or
+ * edge under the moves of the cube's <tt>MoveMetric</tt>.
+ * <p>
+ * Since one move moves at most four corners and four edges (eight of
+ * each for a slice turn), the sum of the corner distances divided by
+ * that number can never exceed the true distance, and likewise for the
+ * edges.  The largest single cubie distance is a lower bound as well.
+ * The heuristic returns the largest of the three, which takes twenty
+ * table lookups and is admissible and consistent.
+ */
+public class ManhattanHeuristic implements Heuristic {
+
+    // DISTANCE[slot][field]: moves needed to bring the cubie that the
+    // packed field describes from <slot> to its home
+    private int[][] cornerDistance;
+    private int[][] edgeDistance;
+    private int cornersPerMove;
+    private int edgesPerMove;
+
+    /**
+     * Builds the distance tables for the moves of the given cube's
+     * metric.
+     */
+    public ManhattanHeuristic(RubiksCube rb)
+    {
+        int[] moves = rb.getMoveMetric().getMoves();
+
+        cornerDistance = distances(moves, CubieTables.CORNER_FROM, CubieTables.CORNER_DELTA,
+                                   CubieTables.NUM_CORNERS, 3, CubieTables.CORNER_ORI_SHIFT);
+        edgeDistance = distances(moves, CubieTables.EDGE_FROM, CubieTables.EDGE_DELTA,
+                                 CubieTables.NUM_EDGES, 2, CubieTables.EDGE_ORI_SHIFT);
+
+        for (int i = 0; i < moves.length; i++)
+        {
+            cornersPerMove = Math.max(cornersPerMove, CubieTables.CORNERS_MOVED[moves[i]].length);
+            edgesPerMove = Math.max(edgesPerMove, CubieTables.EDGES_MOVED[moves[i]].length);
+        }
+    }
+
+    // breadth-first search from each cubie's home over (slot, orientation)
+    // placements; every metric contains the inverse of each of its moves,
+    // so distance from home equals distance to home
+    private static int[][] distances(int[] moves, int[][] from, int[][] delta,
+                                     int slots, int orientations, int oriShift)
+    {
+        int[][] table = new int[slots][CubieTables.FIELD_MASK + 1];
+        int placements = slots * orientations;
+
+        for (int c = 0; c < slots; c++)
+        {
+            int[] dist = new int[placements];
+            java.util.Arrays.fill(dist, -1);
+            int[] queue = new int[placements];
+            int head = 0, tail = 0;
+            dist[c * orientations] = 0;
+            queue[tail++] = c * orientations;
+
+            while (head < tail)
+            {
+                int p = queue[head++];
+                int slot = p / orientations;
+                int ori = p % orientations;
+                for (int m : moves)
+                {
+                    for (int i = 0; i < slots; i++)
+                    {
+                        if (from[m][i] != slot)
+                            continue;
+                        int q = i * orientations + (ori + delta[m][i]) % orientations;
+                        if (dist[q] < 0)
+                        {
+                            dist[q] = dist[p] + 1;
+                            queue[tail++] = q;
+                        }
+                    }
+                }
+            }
+
+            for (int slot = 0; slot < slots; slot++)
+                for (int ori = 0; ori < orientations; ori++)
+                    table[slot][c | ori << oriShift] = dist[slot * orientations + ori];
+        }
+        return table;
+    }
+
+    /**
+     * Returns the value of the heuristic, which is the largest of the
+     * summed corner distances and the summed edge distances, each
+     * divided by the most cubies of its kind one move can move and
+     * rounded up, and of the largest distance of any one cubie.
+     */
+    public int getValue(State state)
+    {
+        long corners = state.getCorners();
+        long edges = state.getEdges();
+
+        int cornerSum = 0;
+        int edgeSum = 0;
+        int max = 0;
+        for (int i = 0; i < CubieTables.NUM_CORNERS; i++)
+        {
+            int d = cornerDistance[i][(int) (corners >>> (CubieTables.FIELD_BITS * i))
+                                      & CubieTables.FIELD_MASK];
+            cornerSum += d;
+            max = Math.max(max, d);
+        }
+        for (int i = 0; i < CubieTables.NUM_EDGES; i++)
+        {
+            int d = edgeDistance[i][(int) (edges >>> (CubieTables.FIELD_BITS * i))
+                                    & CubieTables.FIELD_MASK];
+            edgeSum += d;
+            max = Math.max(max, d);
+        }
+
+        int cornerBound = (cornerSum + cornersPerMove - 1) / cornersPerMove;
+        int edgeBound = (edgeSum + edgesPerMove - 1) / edgesPerMove;
+        return Math.max(max, Math.max(cornerBound, edgeBound));
+    }
+
+}
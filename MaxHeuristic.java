@@ -0,0 +1,58 @@
+/**
+ * This heuristic combines several admissible heuristics by returning
+ * the largest of their values, which is admissible as well.  It is how
+ * the corner database and the edge databases of the cube are used
+ * together.
+ * <p>
+ * Adding the values instead would be tempting for databases over
+ * disjoint sets of cubies, but for the cube it is not admissible: a
+ * <tt>PatternDatabase</tt> counts every move, and a single face turn
+ * moves cubies of several patterns at once.  Summing is only valid for
+ * databases that count just the moves of their own cubies, which the
+ * cube's move set does not allow.
+ */
+public class MaxHeuristic implements Heuristic {
+
+    private Heuristic[] heuristics;
+
+    /** Constructs the maximum of the given heuristics. */
+    public MaxHeuristic(Heuristic[] heuristics)
+    {
+        this.heuristics = heuristics.clone();
+    }
+
+    /** Returns the heuristics being combined. */
+    public Heuristic[] getHeuristics()
+    {
+        return heuristics.clone();
+    }
+
+    /**
+     * Returns the value of the heuristic, the largest value of any of
+     * the combined heuristics at the given state.
+     */
+    public int getValue(State state)
+    {
+        int max = 0;
+        for (int i = 0; i < heuristics.length; i++)
+            max = Math.max(max, heuristics[i].getValue(state));
+        return max;
+    }
+
+    /**
+     * Stores the values of the heuristic at the given states, taking
+     * each combined heuristic over all the states in turn.
+     */
+    public void getValues(State[] states, int[] values)
+    {
+        int[] scratch = new int[states.length];
+        java.util.Arrays.fill(values, 0, states.length, 0);
+        for (int k = 0; k < heuristics.length; k++)
+        {
+            heuristics[k].getValues(states, scratch);
+            for (int i = 0; i < states.length; i++)
+                values[i] = Math.max(values[i], scratch[i]);
+        }
+    }
+
+}
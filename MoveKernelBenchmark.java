@@ -0,0 +1,74 @@
+import java.util.*;
+
+/**
+ * This class contains a simple main for timing the generated move
+ * methods of <tt>MoveKernels</tt> against the table-interpreting
+ * moves of <tt>CubieTables</tt>.  Both are run over the same long
+ * stream of random quarter turns, several times so the JIT has
+ * compiled both paths, and the final rounds are reported in
+ * nanoseconds per move.
+ */
+public class MoveKernelBenchmark
+{
+    private static final int NUM_MOVES = 1 << 20;
+    private static final int ROUNDS = 20;
+
+    public static void main(String argv[])
+    {
+        int[] moves = new int[NUM_MOVES];
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_MOVES; i++)
+            moves[i] = random.nextInt(CubieTables.NUM_QUARTER_TURNS);
+
+        double interpreted = 0;
+        double generated = 0;
+        long check = 0;
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            long start = System.nanoTime();
+            check ^= runInterpreted(moves);
+            long middle = System.nanoTime();
+            check ^= runGenerated(moves);
+            long end = System.nanoTime();
+
+            // only time the second half, once both paths are compiled
+            if (round >= ROUNDS / 2)
+            {
+                interpreted += (middle - start) / (double) NUM_MOVES;
+                generated += (end - middle) / (double) NUM_MOVES;
+            }
+        }
+        interpreted /= ROUNDS - ROUNDS / 2;
+        generated /= ROUNDS - ROUNDS / 2;
+
+        System.out.printf("interpreted: %.2f ns/move%n", interpreted);
+        System.out.printf("generated:   %.2f ns/move%n", generated);
+        System.out.printf("speedup:     %.2fx%n", interpreted / generated);
+        if (check != 0)
+            System.out.println("(paths disagree!)");
+    }
+
+    private static long runInterpreted(int[] moves)
+    {
+        long corners = CubieTables.SOLVED_CORNERS;
+        long edges = CubieTables.SOLVED_EDGES;
+        for (int i = 0; i < moves.length; i++)
+        {
+            corners = CubieTables.moveCorners(corners, moves[i]);
+            edges = CubieTables.moveEdges(edges, moves[i]);
+        }
+        return corners ^ edges;
+    }
+
+    private static long runGenerated(int[] moves)
+    {
+        long corners = CubieTables.SOLVED_CORNERS;
+        long edges = CubieTables.SOLVED_EDGES;
+        for (int i = 0; i < moves.length; i++)
+        {
+            corners = MoveKernels.corners(corners, moves[i]);
+            edges = MoveKernels.edges(edges, moves[i]);
+        }
+        return corners ^ edges;
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.*;
+
+/**
+ * This class generates <tt>MoveKernels.java</tt>, the straight-line
+ * move methods used by <tt>State.expand()</tt>.  For every move of
+ * <tt>RubiksCube.MOVE_NAMES</tt>, including half and slice turns, it
+ * reads the transition tables that <tt>CubieTables</tt> derives from
+ * <tt>RubiksCube.turns</tt> and <tt>CW_ROTATION</tt>, and writes one
+ * method for the corners and one for the edges in which every shift
+ * and mask is a constant: slots a move leaves alone are copied with a
+ * single mask, moved edges are shifted into place and flipped with an
+ * exclusive or, and moved corners are twisted through a 32-entry
+ * table.  There are no loops and no index arithmetic left for the JIT
+ * to see through.
+ * <p>
+ * Run it from the directory holding the sources whenever the move
+ * tables change:
+ * <pre>
+ *     java MoveKernelGenerator MoveKernels.java
+ * </pre>
+ */
+public class MoveKernelGenerator
+{
+    public static void main(String argv[]) throws IOException
+    {
+        String filename = argv.length > 0 ? argv[0] : "MoveKernels.java";
+        PrintWriter out = new PrintWriter(new FileWriter(filename));
+        generate(out);
+        out.close();
+    }
+
+    // the name used for a move in generated methods, e.g. "FPrime"
+    static String moveName(int move)
+    {
+        return RubiksCube.MOVE_NAMES[move].replace("'", "Prime");
+    }
+
+    static void generate(PrintWriter out)
+    {
+        out.println("/**");
+        out.println(" * Straight-line move methods for the packed cubie words of");
+        out.println(" * <tt>State</tt>, one per move of <tt>RubiksCube.MOVE_NAMES</tt>.  This");
+        out.println(" * file is generated by <tt>MoveKernelGenerator</tt> from the tables in");
+        out.println(" * <tt>CubieTables</tt>; do not edit it by hand.");
+        out.println(" */");
+        out.println("final class MoveKernels");
+        out.println("{");
+        out.println("    private final static int[] TWIST1 = CubieTables.CORNER_TWIST[1];");
+        out.println("    private final static int[] TWIST2 = CubieTables.CORNER_TWIST[2];");
+        out.println();
+        out.println("    private MoveKernels()");
+        out.println("    {");
+        out.println("    }");
+
+        int moves = RubiksCube.NUM_MOVES;
+        emitDispatch(out, "corners", "c", moves);
+        emitDispatch(out, "edges", "e", moves);
+
+        for (int m = 0; m < moves; m++)
+        {
+            emitCorners(out, m);
+            emitEdges(out, m);
+        }
+        out.println("}");
+    }
+
+    private static void emitDispatch(PrintWriter out, String kind, String var, int moves)
+    {
+        out.println();
+        out.println("    /** Returns the packed " + kind + " after applying <tt>move</tt>. */");
+        out.println("    static long " + kind + "(long " + var + ", int move)");
+        out.println("    {");
+        out.println("        switch (move)");
+        out.println("        {");
+        for (int m = 0; m < moves; m++)
+        {
+            out.println("            case " + m + ": return " + kind + moveName(m) + "(" + var + ");");
+        }
+        out.println("            default: throw new IllegalArgumentException(\"No such move: \" + move);");
+        out.println("        }");
+        out.println("    }");
+    }
+
+    // the expression that moves the field in slot <from> to slot <to>
+    private static String shifted(String var, int from, int to)
+    {
+        long mask = (long) CubieTables.FIELD_MASK << (CubieTables.FIELD_BITS * to);
+        int distance = CubieTables.FIELD_BITS * (from - to);
+        if (distance > 0)
+            return "((" + var + " >>> " + distance + ") & 0x" + Long.toHexString(mask) + "L)";
+        if (distance < 0)
+            return "((" + var + " << " + -distance + ") & 0x" + Long.toHexString(mask) + "L)";
+        return "(" + var + " & 0x" + Long.toHexString(mask) + "L)";
+    }
+
+    // the mask of the slots the move leaves untouched
+    private static long fixedMask(int[] from, int[] delta)
+    {
+        long mask = 0;
+        for (int i = 0; i < from.length; i++)
+        {
+            if (from[i] == i && delta[i] == 0)
+                mask |= (long) CubieTables.FIELD_MASK << (CubieTables.FIELD_BITS * i);
+        }
+        return mask;
+    }
+
+    private static void emitCorners(PrintWriter out, int m)
+    {
+        int[] from = CubieTables.CORNER_FROM[m];
+        int[] delta = CubieTables.CORNER_DELTA[m];
+
+        out.println();
+        out.println("    static long corners" + moveName(m) + "(long c)");
+        out.println("    {");
+        out.print("        return (c & 0x" + Long.toHexString(fixedMask(from, delta)) + "L)");
+        for (int i = 0; i < from.length; i++)
+        {
+            if (from[i] == i && delta[i] == 0)
+                continue;
+            out.println();
+            if (delta[i] == 0)
+            {
+                out.print("            | " + shifted("c", from[i], i));
+            }
+            else
+            {
+                out.print("            | ((long) TWIST" + delta[i]
+                          + "[(int) (c >>> " + CubieTables.FIELD_BITS * from[i] + ") & "
+                          + CubieTables.FIELD_MASK + "] << " + CubieTables.FIELD_BITS * i + ")");
+            }
+        }
+        out.println(";");
+        out.println("    }");
+    }
+
+    private static void emitEdges(PrintWriter out, int m)
+    {
+        int[] from = CubieTables.EDGE_FROM[m];
+        int[] delta = CubieTables.EDGE_DELTA[m];
+
+        long flips = 0;
+        for (int i = 0; i < from.length; i++)
+        {
+            flips |= (long) delta[i] << (CubieTables.FIELD_BITS * i + CubieTables.EDGE_ORI_SHIFT);
+        }
+
+        out.println();
+        out.println("    static long edges" + moveName(m) + "(long e)");
+        out.println("    {");
+        out.print("        return ((e & 0x" + Long.toHexString(fixedMask(from, delta)) + "L)");
+        for (int i = 0; i < from.length; i++)
+        {
+            if (from[i] == i && delta[i] == 0)
+                continue;
+            out.println();
+            out.print("            | " + shifted("e", from[i], i));
+        }
+        out.println(")");
+        out.println("            ^ 0x" + Long.toHexString(flips) + "L;");
+        out.println("    }");
+    }
+}
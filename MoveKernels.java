@@ -0,0 +1,672 @@
+/**
+ * Straight-line move methods for the packed cubie words of
+ * <tt>State</tt>, one per move of <tt>RubiksCube.MOVE_NAMES</tt>.  This
+ * file is generated by <tt>MoveKernelGenerator</tt> from the tables in
+ * <tt>CubieTables</tt>; do not edit it by hand.
+ */
+final class MoveKernels
+{
+    private final static int[] TWIST1 = CubieTables.CORNER_TWIST[1];
+    private final static int[] TWIST2 = CubieTables.CORNER_TWIST[2];
+
+    private MoveKernels()
+    {
+    }
+
+    /** Returns the packed corners after applying <tt>move</tt>. */
+    static long corners(long c, int move)
+    {
+        switch (move)
+        {
+            case 0: return cornersF(c);
+            case 1: return cornersFPrime(c);
+            case 2: return cornersL(c);
+            case 3: return cornersLPrime(c);
+            case 4: return cornersR(c);
+            case 5: return cornersRPrime(c);
+            case 6: return cornersU(c);
+            case 7: return cornersUPrime(c);
+            case 8: return cornersD(c);
+            case 9: return cornersDPrime(c);
+            case 10: return cornersB(c);
+            case 11: return cornersBPrime(c);
+            case 12: return cornersF2(c);
+            case 13: return cornersL2(c);
+            case 14: return cornersR2(c);
+            case 15: return cornersU2(c);
+            case 16: return cornersD2(c);
+            case 17: return cornersB2(c);
+            case 18: return cornersM(c);
+            case 19: return cornersMPrime(c);
+            case 20: return cornersM2(c);
+            case 21: return cornersE(c);
+            case 22: return cornersEPrime(c);
+            case 23: return cornersE2(c);
+            case 24: return cornersS(c);
+            case 25: return cornersSPrime(c);
+            case 26: return cornersS2(c);
+            default: throw new IllegalArgumentException("No such move: " + move);
+        }
+    }
+
+    /** Returns the packed edges after applying <tt>move</tt>. */
+    static long edges(long e, int move)
+    {
+        switch (move)
+        {
+            case 0: return edgesF(e);
+            case 1: return edgesFPrime(e);
+            case 2: return edgesL(e);
+            case 3: return edgesLPrime(e);
+            case 4: return edgesR(e);
+            case 5: return edgesRPrime(e);
+            case 6: return edgesU(e);
+            case 7: return edgesUPrime(e);
+            case 8: return edgesD(e);
+            case 9: return edgesDPrime(e);
+            case 10: return edgesB(e);
+            case 11: return edgesBPrime(e);
+            case 12: return edgesF2(e);
+            case 13: return edgesL2(e);
+            case 14: return edgesR2(e);
+            case 15: return edgesU2(e);
+            case 16: return edgesD2(e);
+            case 17: return edgesB2(e);
+            case 18: return edgesM(e);
+            case 19: return edgesMPrime(e);
+            case 20: return edgesM2(e);
+            case 21: return edgesE(e);
+            case 22: return edgesEPrime(e);
+            case 23: return edgesE2(e);
+            case 24: return edgesS(e);
+            case 25: return edgesSPrime(e);
+            case 26: return edgesS2(e);
+            default: throw new IllegalArgumentException("No such move: " + move);
+        }
+    }
+
+    static long cornersF(long c)
+    {
+        return (c & 0xffc00ffc00L)
+            | ((long) TWIST1[(int) (c >>> 5) & 31] << 0)
+            | ((long) TWIST2[(int) (c >>> 25) & 31] << 5)
+            | ((long) TWIST2[(int) (c >>> 0) & 31] << 20)
+            | ((long) TWIST1[(int) (c >>> 20) & 31] << 25);
+    }
+
+    static long edgesF(long e)
+    {
+        return ((e & 0xffc00ffc1fffc1fL)
+            | ((e >>> 40) & 0x3e0L)
+            | ((e >>> 15) & 0x3e000000L)
+            | ((e << 35) & 0x1f0000000000L)
+            | ((e << 20) & 0x3e00000000000L))
+            ^ 0x2100020000200L;
+    }
+
+    static long cornersFPrime(long c)
+    {
+        return (c & 0xffc00ffc00L)
+            | ((long) TWIST1[(int) (c >>> 20) & 31] << 0)
+            | ((long) TWIST2[(int) (c >>> 0) & 31] << 5)
+            | ((long) TWIST2[(int) (c >>> 25) & 31] << 20)
+            | ((long) TWIST1[(int) (c >>> 5) & 31] << 25);
+    }
+
+    static long edgesFPrime(long e)
+    {
+        return ((e & 0xffc00ffc1fffc1fL)
+            | ((e >>> 35) & 0x3e0L)
+            | ((e >>> 20) & 0x3e000000L)
+            | ((e << 15) & 0x1f0000000000L)
+            | ((e << 40) & 0x3e00000000000L))
+            ^ 0x2100020000200L;
+    }
+
+    static long cornersL(long c)
+    {
+        return (c & 0xf801ff801fL)
+            | ((long) TWIST1[(int) (c >>> 10) & 31] << 5)
+            | ((long) TWIST2[(int) (c >>> 30) & 31] << 10)
+            | ((long) TWIST2[(int) (c >>> 5) & 31] << 25)
+            | ((long) TWIST1[(int) (c >>> 25) & 31] << 30);
+    }
+
+    static long edgesL(long e)
+    {
+        return ((e & 0xf801ff83fff83ffL)
+            | ((e >>> 40) & 0x7c00L)
+            | ((e >>> 15) & 0x7c0000000L)
+            | ((e << 35) & 0x3e00000000000L)
+            | ((e << 20) & 0x7c000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersLPrime(long c)
+    {
+        return (c & 0xf801ff801fL)
+            | ((long) TWIST1[(int) (c >>> 25) & 31] << 5)
+            | ((long) TWIST2[(int) (c >>> 5) & 31] << 10)
+            | ((long) TWIST2[(int) (c >>> 30) & 31] << 25)
+            | ((long) TWIST1[(int) (c >>> 10) & 31] << 30);
+    }
+
+    static long edgesLPrime(long e)
+    {
+        return ((e & 0xf801ff83fff83ffL)
+            | ((e >>> 35) & 0x7c00L)
+            | ((e >>> 20) & 0x7c0000000L)
+            | ((e << 15) & 0x3e00000000000L)
+            | ((e << 40) & 0x7c000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersR(long c)
+    {
+        return (c & 0x7fe007fe0L)
+            | ((long) TWIST2[(int) (c >>> 20) & 31] << 0)
+            | ((long) TWIST1[(int) (c >>> 0) & 31] << 15)
+            | ((long) TWIST1[(int) (c >>> 35) & 31] << 20)
+            | ((long) TWIST2[(int) (c >>> 15) & 31] << 35);
+    }
+
+    static long edgesR(long e)
+    {
+        return ((e & 0x7fe0fffe0fffe0L)
+            | ((e >>> 40) & 0x1fL)
+            | ((e >>> 35) & 0x1f00000L)
+            | ((e << 20) & 0x1f0000000000L)
+            | ((e << 55) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersRPrime(long c)
+    {
+        return (c & 0x7fe007fe0L)
+            | ((long) TWIST2[(int) (c >>> 15) & 31] << 0)
+            | ((long) TWIST1[(int) (c >>> 35) & 31] << 15)
+            | ((long) TWIST1[(int) (c >>> 0) & 31] << 20)
+            | ((long) TWIST2[(int) (c >>> 20) & 31] << 35);
+    }
+
+    static long edgesRPrime(long e)
+    {
+        return ((e & 0x7fe0fffe0fffe0L)
+            | ((e >>> 55) & 0x1fL)
+            | ((e >>> 20) & 0x1f00000L)
+            | ((e << 40) & 0x1f0000000000L)
+            | ((e << 35) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersU(long c)
+    {
+        return (c & 0xfffff00000L)
+            | ((c >>> 15) & 0x1fL)
+            | ((c << 5) & 0x3e0L)
+            | ((c << 5) & 0x7c00L)
+            | ((c << 5) & 0xf8000L);
+    }
+
+    static long edgesU(long e)
+    {
+        return ((e & 0xffffffffff00000L)
+            | ((e >>> 15) & 0x1fL)
+            | ((e << 5) & 0x3e0L)
+            | ((e << 5) & 0x7c00L)
+            | ((e << 5) & 0xf8000L))
+            ^ 0x0L;
+    }
+
+    static long cornersUPrime(long c)
+    {
+        return (c & 0xfffff00000L)
+            | ((c >>> 5) & 0x1fL)
+            | ((c >>> 5) & 0x3e0L)
+            | ((c >>> 5) & 0x7c00L)
+            | ((c << 15) & 0xf8000L);
+    }
+
+    static long edgesUPrime(long e)
+    {
+        return ((e & 0xffffffffff00000L)
+            | ((e >>> 5) & 0x1fL)
+            | ((e >>> 5) & 0x3e0L)
+            | ((e >>> 5) & 0x7c00L)
+            | ((e << 15) & 0xf8000L))
+            ^ 0x0L;
+    }
+
+    static long cornersD(long c)
+    {
+        return (c & 0xfffffL)
+            | ((c >>> 5) & 0x1f00000L)
+            | ((c >>> 5) & 0x3e000000L)
+            | ((c >>> 5) & 0x7c0000000L)
+            | ((c << 15) & 0xf800000000L);
+    }
+
+    static long edgesD(long e)
+    {
+        return ((e & 0xfffff00000fffffL)
+            | ((e >>> 5) & 0x1f00000L)
+            | ((e >>> 5) & 0x3e000000L)
+            | ((e >>> 5) & 0x7c0000000L)
+            | ((e << 15) & 0xf800000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersDPrime(long c)
+    {
+        return (c & 0xfffffL)
+            | ((c >>> 15) & 0x1f00000L)
+            | ((c << 5) & 0x3e000000L)
+            | ((c << 5) & 0x7c0000000L)
+            | ((c << 5) & 0xf800000000L);
+    }
+
+    static long edgesDPrime(long e)
+    {
+        return ((e & 0xfffff00000fffffL)
+            | ((e >>> 15) & 0x1f00000L)
+            | ((e << 5) & 0x3e000000L)
+            | ((e << 5) & 0x7c0000000L)
+            | ((e << 5) & 0xf800000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersB(long c)
+    {
+        return (c & 0x3ff003ffL)
+            | ((long) TWIST1[(int) (c >>> 15) & 31] << 10)
+            | ((long) TWIST2[(int) (c >>> 35) & 31] << 15)
+            | ((long) TWIST2[(int) (c >>> 10) & 31] << 30)
+            | ((long) TWIST1[(int) (c >>> 30) & 31] << 35);
+    }
+
+    static long edgesB(long e)
+    {
+        return ((e & 0x3ff07fff07fffL)
+            | ((e >>> 40) & 0xf8000L)
+            | ((e >>> 15) & 0xf800000000L)
+            | ((e << 35) & 0x7c000000000000L)
+            | ((e << 20) & 0xf80000000000000L))
+            ^ 0x840008000080000L;
+    }
+
+    static long cornersBPrime(long c)
+    {
+        return (c & 0x3ff003ffL)
+            | ((long) TWIST1[(int) (c >>> 30) & 31] << 10)
+            | ((long) TWIST2[(int) (c >>> 10) & 31] << 15)
+            | ((long) TWIST2[(int) (c >>> 35) & 31] << 30)
+            | ((long) TWIST1[(int) (c >>> 15) & 31] << 35);
+    }
+
+    static long edgesBPrime(long e)
+    {
+        return ((e & 0x3ff07fff07fffL)
+            | ((e >>> 35) & 0xf8000L)
+            | ((e >>> 20) & 0xf800000000L)
+            | ((e << 15) & 0x7c000000000000L)
+            | ((e << 40) & 0xf80000000000000L))
+            ^ 0x840008000080000L;
+    }
+
+    static long cornersF2(long c)
+    {
+        return (c & 0xffc00ffc00L)
+            | ((c >>> 25) & 0x1fL)
+            | ((c >>> 15) & 0x3e0L)
+            | ((c << 15) & 0x1f00000L)
+            | ((c << 25) & 0x3e000000L);
+    }
+
+    static long edgesF2(long e)
+    {
+        return ((e & 0xffc00ffc1fffc1fL)
+            | ((e >>> 20) & 0x3e0L)
+            | ((e << 20) & 0x3e000000L)
+            | ((e >>> 5) & 0x1f0000000000L)
+            | ((e << 5) & 0x3e00000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersL2(long c)
+    {
+        return (c & 0xf801ff801fL)
+            | ((c >>> 25) & 0x3e0L)
+            | ((c >>> 15) & 0x7c00L)
+            | ((c << 15) & 0x3e000000L)
+            | ((c << 25) & 0x7c0000000L);
+    }
+
+    static long edgesL2(long e)
+    {
+        return ((e & 0xf801ff83fff83ffL)
+            | ((e >>> 20) & 0x7c00L)
+            | ((e << 20) & 0x7c0000000L)
+            | ((e >>> 5) & 0x3e00000000000L)
+            | ((e << 5) & 0x7c000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersR2(long c)
+    {
+        return (c & 0x7fe007fe0L)
+            | ((c >>> 35) & 0x1fL)
+            | ((c >>> 5) & 0xf8000L)
+            | ((c << 5) & 0x1f00000L)
+            | ((c << 35) & 0xf800000000L);
+    }
+
+    static long edgesR2(long e)
+    {
+        return ((e & 0x7fe0fffe0fffe0L)
+            | ((e >>> 20) & 0x1fL)
+            | ((e << 20) & 0x1f00000L)
+            | ((e >>> 15) & 0x1f0000000000L)
+            | ((e << 15) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersU2(long c)
+    {
+        return (c & 0xfffff00000L)
+            | ((c >>> 10) & 0x1fL)
+            | ((c >>> 10) & 0x3e0L)
+            | ((c << 10) & 0x7c00L)
+            | ((c << 10) & 0xf8000L);
+    }
+
+    static long edgesU2(long e)
+    {
+        return ((e & 0xffffffffff00000L)
+            | ((e >>> 10) & 0x1fL)
+            | ((e >>> 10) & 0x3e0L)
+            | ((e << 10) & 0x7c00L)
+            | ((e << 10) & 0xf8000L))
+            ^ 0x0L;
+    }
+
+    static long cornersD2(long c)
+    {
+        return (c & 0xfffffL)
+            | ((c >>> 10) & 0x1f00000L)
+            | ((c >>> 10) & 0x3e000000L)
+            | ((c << 10) & 0x7c0000000L)
+            | ((c << 10) & 0xf800000000L);
+    }
+
+    static long edgesD2(long e)
+    {
+        return ((e & 0xfffff00000fffffL)
+            | ((e >>> 10) & 0x1f00000L)
+            | ((e >>> 10) & 0x3e000000L)
+            | ((e << 10) & 0x7c0000000L)
+            | ((e << 10) & 0xf800000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersB2(long c)
+    {
+        return (c & 0x3ff003ffL)
+            | ((c >>> 25) & 0x7c00L)
+            | ((c >>> 15) & 0xf8000L)
+            | ((c << 15) & 0x7c0000000L)
+            | ((c << 25) & 0xf800000000L);
+    }
+
+    static long edgesB2(long e)
+    {
+        return ((e & 0x3ff07fff07fffL)
+            | ((e >>> 20) & 0xf8000L)
+            | ((e << 20) & 0xf800000000L)
+            | ((e >>> 5) & 0x7c000000000000L)
+            | ((e << 5) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersM(long c)
+    {
+        return (c & 0x0L)
+            | ((long) TWIST2[(int) (c >>> 20) & 31] << 0)
+            | ((long) TWIST1[(int) (c >>> 25) & 31] << 5)
+            | ((long) TWIST2[(int) (c >>> 5) & 31] << 10)
+            | ((long) TWIST1[(int) (c >>> 0) & 31] << 15)
+            | ((long) TWIST1[(int) (c >>> 35) & 31] << 20)
+            | ((long) TWIST2[(int) (c >>> 30) & 31] << 25)
+            | ((long) TWIST1[(int) (c >>> 10) & 31] << 30)
+            | ((long) TWIST2[(int) (c >>> 15) & 31] << 35);
+    }
+
+    static long edgesM(long e)
+    {
+        return ((e & 0xf83e0f83e0L)
+            | ((e >>> 40) & 0x1fL)
+            | ((e >>> 35) & 0x7c00L)
+            | ((e >>> 35) & 0x1f00000L)
+            | ((e >>> 20) & 0x7c0000000L)
+            | ((e << 20) & 0x1f0000000000L)
+            | ((e << 15) & 0x3e00000000000L)
+            | ((e << 40) & 0x7c000000000000L)
+            | ((e << 55) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersMPrime(long c)
+    {
+        return (c & 0x0L)
+            | ((long) TWIST2[(int) (c >>> 15) & 31] << 0)
+            | ((long) TWIST1[(int) (c >>> 10) & 31] << 5)
+            | ((long) TWIST2[(int) (c >>> 30) & 31] << 10)
+            | ((long) TWIST1[(int) (c >>> 35) & 31] << 15)
+            | ((long) TWIST1[(int) (c >>> 0) & 31] << 20)
+            | ((long) TWIST2[(int) (c >>> 5) & 31] << 25)
+            | ((long) TWIST1[(int) (c >>> 25) & 31] << 30)
+            | ((long) TWIST2[(int) (c >>> 20) & 31] << 35);
+    }
+
+    static long edgesMPrime(long e)
+    {
+        return ((e & 0xf83e0f83e0L)
+            | ((e >>> 55) & 0x1fL)
+            | ((e >>> 40) & 0x7c00L)
+            | ((e >>> 20) & 0x1f00000L)
+            | ((e >>> 15) & 0x7c0000000L)
+            | ((e << 40) & 0x1f0000000000L)
+            | ((e << 35) & 0x3e00000000000L)
+            | ((e << 20) & 0x7c000000000000L)
+            | ((e << 35) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersM2(long c)
+    {
+        return (c & 0x0L)
+            | ((c >>> 35) & 0x1fL)
+            | ((c >>> 25) & 0x3e0L)
+            | ((c >>> 15) & 0x7c00L)
+            | ((c >>> 5) & 0xf8000L)
+            | ((c << 5) & 0x1f00000L)
+            | ((c << 15) & 0x3e000000L)
+            | ((c << 25) & 0x7c0000000L)
+            | ((c << 35) & 0xf800000000L);
+    }
+
+    static long edgesM2(long e)
+    {
+        return ((e & 0xf83e0f83e0L)
+            | ((e >>> 20) & 0x1fL)
+            | ((e >>> 20) & 0x7c00L)
+            | ((e << 20) & 0x1f00000L)
+            | ((e << 20) & 0x7c0000000L)
+            | ((e >>> 15) & 0x1f0000000000L)
+            | ((e >>> 5) & 0x3e00000000000L)
+            | ((e << 5) & 0x7c000000000000L)
+            | ((e << 15) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersE(long c)
+    {
+        return (c & 0x0L)
+            | ((c >>> 15) & 0x1fL)
+            | ((c << 5) & 0x3e0L)
+            | ((c << 5) & 0x7c00L)
+            | ((c << 5) & 0xf8000L)
+            | ((c >>> 15) & 0x1f00000L)
+            | ((c << 5) & 0x3e000000L)
+            | ((c << 5) & 0x7c0000000L)
+            | ((c << 5) & 0xf800000000L);
+    }
+
+    static long edgesE(long e)
+    {
+        return ((e & 0xfffff0000000000L)
+            | ((e >>> 15) & 0x1fL)
+            | ((e << 5) & 0x3e0L)
+            | ((e << 5) & 0x7c00L)
+            | ((e << 5) & 0xf8000L)
+            | ((e >>> 15) & 0x1f00000L)
+            | ((e << 5) & 0x3e000000L)
+            | ((e << 5) & 0x7c0000000L)
+            | ((e << 5) & 0xf800000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersEPrime(long c)
+    {
+        return (c & 0x0L)
+            | ((c >>> 5) & 0x1fL)
+            | ((c >>> 5) & 0x3e0L)
+            | ((c >>> 5) & 0x7c00L)
+            | ((c << 15) & 0xf8000L)
+            | ((c >>> 5) & 0x1f00000L)
+            | ((c >>> 5) & 0x3e000000L)
+            | ((c >>> 5) & 0x7c0000000L)
+            | ((c << 15) & 0xf800000000L);
+    }
+
+    static long edgesEPrime(long e)
+    {
+        return ((e & 0xfffff0000000000L)
+            | ((e >>> 5) & 0x1fL)
+            | ((e >>> 5) & 0x3e0L)
+            | ((e >>> 5) & 0x7c00L)
+            | ((e << 15) & 0xf8000L)
+            | ((e >>> 5) & 0x1f00000L)
+            | ((e >>> 5) & 0x3e000000L)
+            | ((e >>> 5) & 0x7c0000000L)
+            | ((e << 15) & 0xf800000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersE2(long c)
+    {
+        return (c & 0x0L)
+            | ((c >>> 10) & 0x1fL)
+            | ((c >>> 10) & 0x3e0L)
+            | ((c << 10) & 0x7c00L)
+            | ((c << 10) & 0xf8000L)
+            | ((c >>> 10) & 0x1f00000L)
+            | ((c >>> 10) & 0x3e000000L)
+            | ((c << 10) & 0x7c0000000L)
+            | ((c << 10) & 0xf800000000L);
+    }
+
+    static long edgesE2(long e)
+    {
+        return ((e & 0xfffff0000000000L)
+            | ((e >>> 10) & 0x1fL)
+            | ((e >>> 10) & 0x3e0L)
+            | ((e << 10) & 0x7c00L)
+            | ((e << 10) & 0xf8000L)
+            | ((e >>> 10) & 0x1f00000L)
+            | ((e >>> 10) & 0x3e000000L)
+            | ((e << 10) & 0x7c0000000L)
+            | ((e << 10) & 0xf800000000L))
+            ^ 0x0L;
+    }
+
+    static long cornersS(long c)
+    {
+        return (c & 0x0L)
+            | ((long) TWIST1[(int) (c >>> 20) & 31] << 0)
+            | ((long) TWIST2[(int) (c >>> 0) & 31] << 5)
+            | ((long) TWIST1[(int) (c >>> 15) & 31] << 10)
+            | ((long) TWIST2[(int) (c >>> 35) & 31] << 15)
+            | ((long) TWIST2[(int) (c >>> 25) & 31] << 20)
+            | ((long) TWIST1[(int) (c >>> 5) & 31] << 25)
+            | ((long) TWIST2[(int) (c >>> 10) & 31] << 30)
+            | ((long) TWIST1[(int) (c >>> 30) & 31] << 35);
+    }
+
+    static long edgesS(long e)
+    {
+        return ((e & 0x7c1f07c1fL)
+            | ((e >>> 35) & 0x3e0L)
+            | ((e >>> 40) & 0xf8000L)
+            | ((e >>> 20) & 0x3e000000L)
+            | ((e >>> 15) & 0xf800000000L)
+            | ((e << 15) & 0x1f0000000000L)
+            | ((e << 40) & 0x3e00000000000L)
+            | ((e << 35) & 0x7c000000000000L)
+            | ((e << 20) & 0xf80000000000000L))
+            ^ 0x842108020080200L;
+    }
+
+    static long cornersSPrime(long c)
+    {
+        return (c & 0x0L)
+            | ((long) TWIST1[(int) (c >>> 5) & 31] << 0)
+            | ((long) TWIST2[(int) (c >>> 25) & 31] << 5)
+            | ((long) TWIST1[(int) (c >>> 30) & 31] << 10)
+            | ((long) TWIST2[(int) (c >>> 10) & 31] << 15)
+            | ((long) TWIST2[(int) (c >>> 0) & 31] << 20)
+            | ((long) TWIST1[(int) (c >>> 20) & 31] << 25)
+            | ((long) TWIST2[(int) (c >>> 35) & 31] << 30)
+            | ((long) TWIST1[(int) (c >>> 15) & 31] << 35);
+    }
+
+    static long edgesSPrime(long e)
+    {
+        return ((e & 0x7c1f07c1fL)
+            | ((e >>> 40) & 0x3e0L)
+            | ((e >>> 35) & 0xf8000L)
+            | ((e >>> 15) & 0x3e000000L)
+            | ((e >>> 20) & 0xf800000000L)
+            | ((e << 35) & 0x1f0000000000L)
+            | ((e << 20) & 0x3e00000000000L)
+            | ((e << 15) & 0x7c000000000000L)
+            | ((e << 40) & 0xf80000000000000L))
+            ^ 0x842108020080200L;
+    }
+
+    static long cornersS2(long c)
+    {
+        return (c & 0x0L)
+            | ((c >>> 25) & 0x1fL)
+            | ((c >>> 15) & 0x3e0L)
+            | ((c >>> 25) & 0x7c00L)
+            | ((c >>> 15) & 0xf8000L)
+            | ((c << 15) & 0x1f00000L)
+            | ((c << 25) & 0x3e000000L)
+            | ((c << 15) & 0x7c0000000L)
+            | ((c << 25) & 0xf800000000L);
+    }
+
+    static long edgesS2(long e)
+    {
+        return ((e & 0x7c1f07c1fL)
+            | ((e >>> 20) & 0x3e0L)
+            | ((e >>> 20) & 0xf8000L)
+            | ((e << 20) & 0x3e000000L)
+            | ((e << 20) & 0xf800000000L)
+            | ((e >>> 5) & 0x1f0000000000L)
+            | ((e << 5) & 0x3e00000000000L)
+            | ((e >>> 5) & 0x7c000000000000L)
+            | ((e << 5) & 0xf80000000000000L))
+            ^ 0x0L;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * This enumerates the move sets, or metrics, that a cube search can
+ * use.  A metric is the list of moves (indices into
+ * <tt>RubiksCube.MOVE_NAMES</tt>) that each count as a single step:
+ * <ul>
+ * <li><tt>QUARTER_TURN</tt>: the 12 quarter turns of the outer faces,
+ *     so a half turn costs two steps;
+ * <li><tt>HALF_TURN</tt>: the 18 quarter and half turns of the outer
+ *     faces, which gives much shorter solutions;
+ * <li><tt>SLICE_TURN</tt>: the 18 outer turns plus the 9 turns of the
+ *     middle slices.
+ * </ul>
+ * States are expanded, heuristics are computed and solutions are
+ * counted in the moves of the metric of their <tt>RubiksCube</tt>.
+ * Each metric also carries the <tt>MovePruning</tt> automaton that
+ * keeps expansion to canonical move sequences.
+ */
+public enum MoveMetric
+{
+    QUARTER_TURN(RubiksCube.FIRST_HALF_TURN),
+    HALF_TURN(RubiksCube.FIRST_SLICE_TURN),
+    SLICE_TURN(RubiksCube.NUM_MOVES);
+
+    private final int[] moves;
+    private final MovePruning pruning;
+
+    // the moves of each metric are those before <end>
+    private MoveMetric(int end)
+    {
+        moves = new int[end];
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = i;
+        pruning = new MovePruning(moves);
+    }
+
+    /**
+     * Returns the moves of this metric, in the order in which
+     * <tt>State.expand()</tt> generates them.  The returned array must
+     * not be modified.
+     */
+    public int[] getMoves()
+    {
+        return moves;
+    }
+
+    /** Returns the move pruning automaton for the moves of this metric. */
+    public MovePruning getPruning()
+    {
+        return pruning;
+    }
+}
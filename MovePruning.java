@@ -0,0 +1,127 @@
+/**
+ * This is the finite-state automaton that keeps a search from making
+ * moves that are bound to be redundant, given the move or two just
+ * made.  A move is pruned if
+ * <ul>
+ * <li>it turns the same face as the move before it, since the two
+ *     together are a single move or nothing at all.  In the quarter
+ *     turn metric, where a half turn has to be spelled as two quarter
+ *     turns, the one exception is a second clockwise turn following a
+ *     single clockwise turn;
+ * <li>it turns a face on the same axis as the move before it but comes
+ *     earlier in the order f, l, r, u, d, b, M, E, S.  Such moves
+ *     commute, so only one of the two orders is needed.
+ * </ul>
+ * Every sequence that is pruned has a sequence of the same or smaller
+ * length that is not, so no state becomes unreachable and no solution
+ * gets longer.  In the quarter turn metric this brings the branching
+ * factor down from 12 to about 9.4.
+ * <p>
+ * Automaton state 0 is the start state (nothing made yet), state
+ * <tt>1 + m</tt> means the last move was <tt>m</tt>, and the last
+ * <tt>RubiksCube.NUM_FACES</tt> states mean the face was just given
+ * two clockwise quarter turns in a row.
+ */
+public class MovePruning
+{
+    /** The state of the automaton before any move has been made. */
+    public final static int START = 0;
+
+    private final static int NUM_STATES = 1 + RubiksCube.NUM_MOVES + RubiksCube.NUM_FACES;
+
+    private final int[] moves;
+    private final int[][] next;
+
+    /**
+     * Builds the automaton for the given moves, which are indices into
+     * <tt>RubiksCube.MOVE_NAMES</tt>.
+     */
+    public MovePruning(int[] moves)
+    {
+        this.moves = moves;
+        next = new int[NUM_STATES][moves.length];
+
+        boolean halfTurns = false;
+        for (int i = 0; i < moves.length; i++)
+            halfTurns |= isHalfTurn(moves[i]);
+
+        for (int s = 0; s < NUM_STATES; s++)
+        {
+            for (int i = 0; i < moves.length; i++)
+            {
+                next[s][i] = transition(s, moves[i], halfTurns);
+            }
+        }
+    }
+
+    /** Returns the moves this automaton was built for. */
+    public int[] getMoves()
+    {
+        return moves;
+    }
+
+    /**
+     * Returns the automaton state after making move
+     * <tt>getMoves()[i]</tt> in state <tt>state</tt>, or -1 if that
+     * move is pruned.
+     */
+    public int next(int state, int i)
+    {
+        return next[state][i];
+    }
+
+    // the face (0-5) or slice (6-8) a move turns
+    static int layer(int move)
+    {
+        if (move < RubiksCube.FIRST_HALF_TURN)
+            return move / 2;
+        if (move < RubiksCube.FIRST_SLICE_TURN)
+            return move - RubiksCube.FIRST_HALF_TURN;
+        return RubiksCube.NUM_FACES + (move - RubiksCube.FIRST_SLICE_TURN) / 3;
+    }
+
+    // the axis of a face or slice: 0 for f/b/S, 1 for l/r/M, 2 for u/d/E
+    private static int axis(int layer)
+    {
+        switch (layer)
+        {
+            case 0: case 5: case 8: return 0;
+            case 1: case 2: case 6: return 1;
+            default: return 2;
+        }
+    }
+
+    private static boolean isHalfTurn(int move)
+    {
+        return move >= RubiksCube.FIRST_HALF_TURN;
+    }
+
+    private static boolean isClockwiseQuarterTurn(int move)
+    {
+        return move < RubiksCube.FIRST_HALF_TURN && move % 2 == 0;
+    }
+
+    private static int transition(int state, int move, boolean halfTurns)
+    {
+        if (state == START)
+            return 1 + move;
+
+        int layer = layer(move);
+        boolean twice = state > RubiksCube.NUM_MOVES;
+        int lastLayer = twice ? state - 1 - RubiksCube.NUM_MOVES : layer(state - 1);
+
+        if (layer == lastLayer)
+        {
+            // a clockwise quarter turn may be repeated once, to spell a
+            // half turn in the quarter turn metric
+            if (!halfTurns && !twice && state - 1 == move && isClockwiseQuarterTurn(move))
+                return 1 + RubiksCube.NUM_MOVES + layer;
+            return -1;
+        }
+
+        if (axis(layer) == axis(lastLayer) && layer < lastLayer)
+            return -1;
+
+        return 1 + move;
+    }
+}
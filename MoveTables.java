@@ -0,0 +1,221 @@
+/**
+ * This class holds move tables on coordinates of the cube: small
+ * numbers that describe one aspect of a state, such as the twists of
+ * the corners, and that a move changes in a way that depends on
+ * nothing else.  Once a state's coordinates are known, those of a
+ * state one move away are a single table read each, instead of a
+ * recomputation from the packed cubies.
+ * <p>
+ * The coordinates are
+ * <ul>
+ * <li>the corner twist, 0 to 2186: the orientations of the corners in
+ *     slots urf to dlf, in base 3 with the urf slot most significant.
+ *     The orientation of the corner in slot drb follows from these;
+ * <li>the corner permutation, 0 to 40319: the rank of the slots the
+ *     corners urf to drb are in, as <tt>CubiePattern</tt> ranks them;
+ * <li>the edge flip, 0 to 2047: the orientations of the edges in slots
+ *     ur to bl, in base 2 with the ur slot most significant;
+ * <li>the UD slice, 0 to 494: which four slots hold the edges of the
+ *     slice between the u and d faces (fr, fl, bl and br), whatever
+ *     their order, as a combination; 494 when they are home;
+ * <li>the position of a single cubie, 0 to 23: its slot times the
+ *     number of its orientations plus its orientation.  The positions
+ *     of the cubies of a <tt>CubiePattern</tt> make up its
+ *     coordinates.
+ * </ul>
+ * The tables are built from the generated <tt>MoveKernels</tt> and
+ * the transition tables of <tt>CubieTables</tt>, for all
+ * <tt>RubiksCube.NUM_MOVES</tt> moves.
+ */
+public final class MoveTables
+{
+    public final static int NUM_TWISTS = 2187;
+    public final static int NUM_CORNER_PERMUTATIONS = 40320;
+    public final static int NUM_FLIPS = 2048;
+    public final static int NUM_SLICES = 495;
+    public final static int NUM_POSITIONS = 24;
+
+    /** The UD slice coordinate of the solved cube. */
+    public final static int SOLVED_SLICE = NUM_SLICES - 1;
+
+    // the first edge of the UD slice; the slice edges are this one and
+    // the three after it
+    private final static int FIRST_SLICE_EDGE = 8;
+
+    // TWIST_MOVE[m][t] is twist t after move m, and so on
+    final static char[][] TWIST_MOVE = new char[RubiksCube.NUM_MOVES][NUM_TWISTS];
+    final static char[][] CORNER_PERMUTATION_MOVE =
+        new char[RubiksCube.NUM_MOVES][NUM_CORNER_PERMUTATIONS];
+    final static char[][] FLIP_MOVE = new char[RubiksCube.NUM_MOVES][NUM_FLIPS];
+    final static char[][] SLICE_MOVE = new char[RubiksCube.NUM_MOVES][NUM_SLICES];
+    final static byte[][] CORNER_POSITION_MOVE = new byte[RubiksCube.NUM_MOVES][NUM_POSITIONS];
+    final static byte[][] EDGE_POSITION_MOVE = new byte[RubiksCube.NUM_MOVES][NUM_POSITIONS];
+
+    static
+    {
+        CubiePattern corners = CubiePattern.allCorners();
+        for (int m = 0; m < RubiksCube.NUM_MOVES; m++)
+        {
+            for (int t = 0; t < NUM_TWISTS; t++)
+                TWIST_MOVE[m][t] = (char) twist(MoveKernels.corners(cornersWithTwist(t), m));
+            for (int p = 0; p < NUM_CORNER_PERMUTATIONS; p++)
+            {
+                long word = corners.unrank((long) p * NUM_TWISTS);
+                CORNER_PERMUTATION_MOVE[m][p] = (char) cornerPermutation(MoveKernels.corners(word, m));
+            }
+            for (int f = 0; f < NUM_FLIPS; f++)
+                FLIP_MOVE[m][f] = (char) flip(MoveKernels.edges(edgesWithFlip(f), m));
+            for (int c = 0; c < NUM_SLICES; c++)
+                SLICE_MOVE[m][c] = (char) slice(MoveKernels.edges(edgesWithSlice(c), m));
+            positions(CubieTables.CORNER_FROM[m], CubieTables.CORNER_DELTA[m], 3,
+                      CORNER_POSITION_MOVE[m]);
+            positions(CubieTables.EDGE_FROM[m], CubieTables.EDGE_DELTA[m], 2,
+                      EDGE_POSITION_MOVE[m]);
+        }
+    }
+
+    private MoveTables()
+    {
+    }
+
+    // where a move takes a cubie in each position: the cubie in slot
+    // from[i] goes to slot i and gains delta[i]
+    private static void positions(int[] from, int[] delta, int orientations, byte[] table)
+    {
+        for (int i = 0; i < from.length; i++)
+            for (int ori = 0; ori < orientations; ori++)
+                table[from[i] * orientations + ori] =
+                    (byte) (i * orientations + (ori + delta[i]) % orientations);
+    }
+
+    /** Returns the corner twist coordinate of packed corners. */
+    public static int twist(long corners)
+    {
+        int twist = 0;
+        for (int i = 0; i < CubieTables.NUM_CORNERS - 1; i++)
+            twist = 3 * twist + CubieTables.orientation(corners, i, CubieTables.CORNER_ORI_SHIFT);
+        return twist;
+    }
+
+    /**
+     * Returns the solved corners with the given twist coordinate, the
+     * last corner twisted so that the twists add up to a multiple of 3.
+     */
+    public static long cornersWithTwist(int twist)
+    {
+        long corners = CubieTables.SOLVED_CORNERS;
+        int sum = 0;
+        for (int i = CubieTables.NUM_CORNERS - 2; i >= 0; i--)
+        {
+            int ori = twist % 3;
+            twist /= 3;
+            sum += ori;
+            corners |= (long) ori << (CubieTables.FIELD_BITS * i + CubieTables.CORNER_ORI_SHIFT);
+        }
+        int last = (3 - sum % 3) % 3;
+        return corners | (long) last << (CubieTables.FIELD_BITS * (CubieTables.NUM_CORNERS - 1)
+                                         + CubieTables.CORNER_ORI_SHIFT);
+    }
+
+    /** Returns the edge flip coordinate of packed edges. */
+    public static int flip(long edges)
+    {
+        int flip = 0;
+        for (int i = 0; i < CubieTables.NUM_EDGES - 1; i++)
+            flip = 2 * flip + CubieTables.orientation(edges, i, CubieTables.EDGE_ORI_SHIFT);
+        return flip;
+    }
+
+    /**
+     * Returns the solved edges with the given flip coordinate, the last
+     * edge flipped so that the flips add up to a multiple of 2.
+     */
+    public static long edgesWithFlip(int flip)
+    {
+        long edges = CubieTables.SOLVED_EDGES;
+        int sum = 0;
+        for (int i = CubieTables.NUM_EDGES - 2; i >= 0; i--)
+        {
+            int ori = flip & 1;
+            flip >>= 1;
+            sum += ori;
+            edges |= (long) ori << (CubieTables.FIELD_BITS * i + CubieTables.EDGE_ORI_SHIFT);
+        }
+        return edges | (long) (sum & 1) << (CubieTables.FIELD_BITS * (CubieTables.NUM_EDGES - 1)
+                                             + CubieTables.EDGE_ORI_SHIFT);
+    }
+
+    /**
+     * Returns the UD slice coordinate of packed edges: with the slots
+     * holding slice edges <tt>s0 &lt; s1 &lt; s2 &lt; s3</tt>, the sum
+     * of <tt>C(s_j, j + 1)</tt>.
+     */
+    public static int slice(long edges)
+    {
+        int slice = 0;
+        int j = 0;
+        for (int i = 0; i < CubieTables.NUM_EDGES; i++)
+        {
+            if (CubieTables.cubie(edges, i, CubieTables.CUBIE_MASK_EDGE) >= FIRST_SLICE_EDGE)
+                slice += choose(i, ++j);
+        }
+        return slice;
+    }
+
+    /**
+     * Returns unflipped edges whose UD slice coordinate is
+     * <tt>slice</tt>: the slice edges in order in the slots it names,
+     * and the other edges in order in the rest.
+     */
+    public static long edgesWithSlice(int slice)
+    {
+        boolean[] inSlice = new boolean[CubieTables.NUM_EDGES];
+        for (int j = 4, i = CubieTables.NUM_EDGES - 1; j > 0; i--)
+        {
+            if (choose(i, j) <= slice)
+            {
+                slice -= choose(i, j);
+                inSlice[i] = true;
+                j--;
+            }
+        }
+        long edges = 0;
+        int sliceEdge = FIRST_SLICE_EDGE;
+        int otherEdge = 0;
+        for (int i = 0; i < CubieTables.NUM_EDGES; i++)
+        {
+            int cubie = inSlice[i] ? sliceEdge++ : otherEdge++;
+            edges |= (long) cubie << (CubieTables.FIELD_BITS * i);
+        }
+        return edges;
+    }
+
+    private static int choose(int n, int k)
+    {
+        if (k > n)
+            return 0;
+        int c = 1;
+        for (int i = 0; i < k; i++)
+            c = c * (n - i) / (i + 1);
+        return c;
+    }
+
+    /** Returns the corner permutation coordinate of packed corners. */
+    public static int cornerPermutation(long corners)
+    {
+        // the slot of each corner, 3 bits per corner
+        int slotOf = 0;
+        for (int i = 0; i < CubieTables.NUM_CORNERS; i++)
+            slotOf |= i << (3 * CubieTables.cubie(corners, i, CubieTables.CUBIE_MASK_CORNER));
+
+        int perm = 0;
+        int used = 0;
+        for (int c = 0; c < CubieTables.NUM_CORNERS; c++)
+        {
+            int s = (slotOf >>> (3 * c)) & 7;
+            perm = perm * (CubieTables.NUM_CORNERS - c) + s - Integer.bitCount(used & ((1 << s) - 1));
+            used |= 1 << s;
+        }
+        return perm;
+    }
+}
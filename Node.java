@@ -16,6 +16,7 @@ public class Node {
     private State state;
     private int depth;
     private Node parent;
+    private int move;
     
     /**
      * The main constructor for constructing a search node.  You
@@ -30,9 +31,22 @@ public class Node {
     public Node(State state,
                 int depth,
                 Node parent) {
+        this(state, depth, parent, -1);
+    }
+    
+    /**
+     * Constructs a search node as above, recording the move (an index
+     * into <tt>RubiksCube.MOVE_NAMES</tt>) that led to it from its
+     * parent, or -1 for the initial node.
+     */
+    public Node(State state,
+                int depth,
+                Node parent,
+                int move) {
         this.state = state;
         this.depth = depth;
         this.parent = parent;
+        this.move = move;
     }
     
     /** Returns the state associated with this node. */
@@ -50,6 +64,11 @@ public class Node {
         return depth;
     }
     
+    /** Returns the move that led from the parent to this node, or -1. */
+    public int getMove() {
+        return move;
+    }
+    
     /**
      * Expands this node, in other words, computes all of the nodes
      * immediately reachable from this node according to the rules of
@@ -60,7 +79,8 @@ public class Node {
         Node[] new_nodes = new Node[new_states.length];
         
         for (int i = 0; i < new_states.length; i++)
-            new_nodes[i] = new Node(new_states[i], depth+1, this);
+            new_nodes[i] = new Node(new_states[i], depth+1, this,
+                                    new_states[i].getLastMove());
         
         return new_nodes;
     }
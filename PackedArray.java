@@ -0,0 +1,332 @@
+import java.io.*;
+import java.lang.invoke.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.zip.*;
+
+/**
+ * This is the class for a large array of small values, packed into
+ * <tt>long</tt>s: sixteen 4-bit values (nibbles) or thirty-two 2-bit
+ * values to a <tt>long</tt>.  It is the storage of a
+ * <tt>PatternDatabase</tt>.  With nibbles, which hold distances of at
+ * most 15, the 88 million corner arrangements take 44MB rather than
+ * the 88MB of a byte array; with 2-bit values, which hold distances
+ * mod 3, they take 22MB.  Indices are <tt>long</tt>s.
+ * <p>
+ * The <tt>long</tt>s are kept in one of three places:
+ * <ul>
+ * <li>a <tt>long[]</tt> on the heap, for arrays made by the
+ *     constructor;
+ * <li>direct buffers outside the heap, for arrays made by
+ *     <tt>offHeap</tt>.  These are not bounded by the heap or by the
+ *     length of a Java array, only by <tt>-XX:MaxDirectMemorySize</tt>,
+ *     so they suit the databases of seven or eight edges, with
+ *     hundreds of millions to billions of entries;
+ * <li>read-only views of a file mapped with <tt>FileChannel.map</tt>,
+ *     for arrays made by <tt>map</tt>.
+ * </ul>
+ * Buffers are limited to 2^31 bytes, so the last two are split into
+ * chunks of <tt>CHUNK_BYTES</tt>.  All three share the layout of the
+ * file that <tt>writeTo</tt> writes: the same <tt>long</tt>s, in
+ * little-endian byte order, with value <tt>i</tt> of a word in its
+ * <tt>i</tt>th lowest group of bits.
+ * <p>
+ * A mapped array is read from disk as lookups first touch its pages,
+ * which makes early lookups slow.  <tt>prefetch</tt> touches the pages
+ * ahead of time, one segment of <tt>SEGMENT_BYTES</tt> at a time, so
+ * that several threads can share the work.
+ * <p>
+ * <tt>get</tt> and <tt>set</tt> are plain memory accesses.  Threads
+ * that write concurrently must use <tt>compareAndSet</tt>, which
+ * retries on the whole <tt>long</tt> so that updates to neighbouring
+ * values are not lost.
+ */
+public class PackedArray {
+
+    /** The number of bytes in each buffer of an off-heap or mapped array. */
+    public final static int CHUNK_BYTES = 1 << 30;
+
+    /** The number of bytes in each segment touched by <tt>prefetch</tt>. */
+    public final static int SEGMENT_BYTES = 1 << 26;
+
+    // pages are assumed to be no smaller than this
+    private final static int PAGE_BYTES = 4096;
+
+    // written by prefetch so that its reads are not optimized away
+    private static volatile long touched;
+
+    private final static VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private final static VarHandle BUFFER_WORDS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private long size;
+    private int bits;
+    private int valueMask;
+    // log2 of the values per word, and of the values per chunk
+    private int wordShift;
+    private int chunkShift;
+    private long[] words;
+    private ByteBuffer[] chunks;
+    private boolean readOnly;
+
+    /**
+     * Constructs an array of <tt>size</tt> values of <tt>bits</tt> bits
+     * each (2 or 4) on the heap, all set to <tt>fill</tt>.
+     */
+    public PackedArray(long size, int bits, int fill)
+    {
+        this(size, bits);
+        if (wordCount(size, bits) > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many values for the heap: " + size);
+        words = new long[(int) wordCount(size, bits)];
+        java.util.Arrays.fill(words, pattern(fill));
+    }
+
+    private PackedArray(long size, int bits)
+    {
+        if (bits != 2 && bits != 4)
+            throw new IllegalArgumentException("Values must have 2 or 4 bits, not " + bits);
+        this.size = size;
+        this.bits = bits;
+        valueMask = (1 << bits) - 1;
+        wordShift = bits == 4 ? 4 : 5;
+        chunkShift = wordShift + 27;
+    }
+
+    /**
+     * Returns an array of <tt>size</tt> values of <tt>bits</tt> bits
+     * each, all set to <tt>fill</tt>, in direct buffers outside the
+     * heap.
+     */
+    public static PackedArray offHeap(long size, int bits, int fill)
+    {
+        PackedArray array = new PackedArray(size, bits);
+        array.chunks = new ByteBuffer[chunkCount(size, bits)];
+        long remaining = byteCount(size, bits);
+        long pattern = array.pattern(fill);
+        for (int i = 0; i < array.chunks.length; i++)
+        {
+            int bytes = (int) Math.min(remaining, CHUNK_BYTES);
+            array.chunks[i] = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            for (int b = 0; b < bytes; b += 8)
+                array.chunks[i].putLong(b, pattern);
+            remaining -= bytes;
+        }
+        return array;
+    }
+
+    /**
+     * Returns a read-only array of <tt>size</tt> values of <tt>bits</tt>
+     * bits each, mapping the file region that starts at
+     * <tt>position</tt>.  Nothing is read until values are looked up;
+     * the pages are then brought in by the operating system, and shared
+     * with other processes mapping the same file.
+     */
+    static PackedArray map(FileChannel channel, long position, long size, int bits) throws IOException
+    {
+        PackedArray array = new PackedArray(size, bits);
+        array.chunks = new ByteBuffer[chunkCount(size, bits)];
+        array.readOnly = true;
+        long remaining = byteCount(size, bits);
+        for (int i = 0; i < array.chunks.length; i++)
+        {
+            long bytes = Math.min(remaining, CHUNK_BYTES);
+            array.chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            position += bytes;
+            remaining -= bytes;
+        }
+        return array;
+    }
+
+    // fill repeated across a whole word
+    private long pattern(int fill)
+    {
+        long pattern = 0;
+        for (int i = 0; i < 64; i += bits)
+            pattern |= (long) (fill & valueMask) << i;
+        return pattern;
+    }
+
+    private static long wordCount(long size, int bits)
+    {
+        int perWord = 64 / bits;
+        return (size + perWord - 1) / perWord;
+    }
+
+    private static int chunkCount(long size, int bits)
+    {
+        return (int) ((byteCount(size, bits) + CHUNK_BYTES - 1) / CHUNK_BYTES);
+    }
+
+    /** Returns the number of bytes that <tt>size</tt> values of <tt>bits</tt> bits take in a file. */
+    static long byteCount(long size, int bits)
+    {
+        return wordCount(size, bits) * 8;
+    }
+
+    // the byte offset within its chunk of the long holding index
+    private int offset(long index)
+    {
+        return (int) ((index & ((1L << chunkShift) - 1)) >>> wordShift) << 3;
+    }
+
+    // the position of index's bits within its long
+    private int shift(long index)
+    {
+        return (int) (index & ((1 << wordShift) - 1)) * bits;
+    }
+
+    /** Returns the number of values in this array. */
+    public long size()
+    {
+        return size;
+    }
+
+    /** Returns the number of bits in each value, 2 or 4. */
+    public int getBits()
+    {
+        return bits;
+    }
+
+    /** Returns true if this array maps a file and cannot be changed. */
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    /**
+     * Returns the number of segments for <tt>prefetch</tt>, or 0 if
+     * the array is on the heap and needs no prefetching.
+     */
+    public int segmentCount()
+    {
+        if (chunks == null)
+            return 0;
+        int count = 0;
+        for (int i = 0; i < chunks.length; i++)
+            count += (chunks[i].capacity() + SEGMENT_BYTES - 1) / SEGMENT_BYTES;
+        return count;
+    }
+
+    /**
+     * Brings segment <tt>segment</tt> of the array into memory, by
+     * reading one <tt>long</tt> from each of its pages.  Segments can be
+     * prefetched by different threads at once.
+     */
+    public void prefetch(int segment)
+    {
+        int perChunk = CHUNK_BYTES / SEGMENT_BYTES;
+        ByteBuffer chunk = chunks[segment / perChunk];
+        int from = (segment % perChunk) * SEGMENT_BYTES;
+        int to = Math.min(chunk.capacity(), from + SEGMENT_BYTES);
+        long sum = 0;
+        for (int b = from; b < to; b += PAGE_BYTES)
+            sum += chunk.getLong(b);
+        touched = sum;
+    }
+
+    /** Returns the value at <tt>index</tt>. */
+    public int get(long index)
+    {
+        long word = words != null ? words[(int) (index >>> wordShift)]
+                                  : chunks[(int) (index >>> chunkShift)].getLong(offset(index));
+        return (int) (word >>> shift(index)) & valueMask;
+    }
+
+    /** Sets the value at <tt>index</tt> to <tt>value</tt>. */
+    public void set(long index, int value)
+    {
+        int shift = shift(index);
+        long mask = ~((long) valueMask << shift);
+        long bits = (long) (value & valueMask) << shift;
+        if (words != null)
+        {
+            int w = (int) (index >>> wordShift);
+            words[w] = (words[w] & mask) | bits;
+        }
+        else
+        {
+            ByteBuffer chunk = chunks[(int) (index >>> chunkShift)];
+            int offset = offset(index);
+            chunk.putLong(offset, (chunk.getLong(offset) & mask) | bits);
+        }
+    }
+
+    /**
+     * Atomically sets the value at <tt>index</tt> to <tt>value</tt> if
+     * it is <tt>expect</tt>.  Returns true if it was, false if the
+     * value was something else.
+     */
+    public boolean compareAndSet(long index, int expect, int value)
+    {
+        int shift = shift(index);
+        long mask = ~((long) valueMask << shift);
+        long bits = (long) (value & valueMask) << shift;
+        if (words != null)
+        {
+            int w = (int) (index >>> wordShift);
+            while (true)
+            {
+                long old = (long) WORDS.getVolatile(words, w);
+                if ((int) (old >>> shift & valueMask) != expect)
+                    return false;
+                if (WORDS.compareAndSet(words, w, old, (old & mask) | bits))
+                    return true;
+            }
+        }
+        else
+        {
+            ByteBuffer chunk = chunks[(int) (index >>> chunkShift)];
+            int offset = offset(index);
+            while (true)
+            {
+                long old = (long) BUFFER_WORDS.getVolatile(chunk, offset);
+                if ((int) (old >>> shift & valueMask) != expect)
+                    return false;
+                if (BUFFER_WORDS.compareAndSet(chunk, offset, old, (old & mask) | bits))
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Writes the values to the channel in the file layout, and adds
+     * the bytes written to <tt>checksum</tt>.
+     */
+    void writeTo(WritableByteChannel channel, Checksum checksum) throws IOException
+    {
+        if (chunks != null)
+        {
+            for (int i = 0; i < chunks.length; i++)
+            {
+                ByteBuffer buffer = chunks[i].duplicate().clear();
+                checksum.update(buffer.duplicate());
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int w = 0; w < words.length; w++)
+        {
+            buffer.putLong(words[w]);
+            if (!buffer.hasRemaining() || w == words.length - 1)
+            {
+                buffer.flip();
+                checksum.update(buffer.duplicate());
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    /** Adds the bytes of an off-heap or mapped array to <tt>checksum</tt>. */
+    void update(Checksum checksum)
+    {
+        for (int i = 0; i < chunks.length; i++)
+            checksum.update(chunks[i].duplicate().clear());
+    }
+}
@@ -0,0 +1,243 @@
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This is the class that performs iterative-deepening A* (IDA*) search
+ * on a given rubiks cube with a given heuristic, on all the threads of
+ * a <tt>ForkJoinPool</tt>.  Like <tt>IDAStar</tt>, the search is
+ * carried out by the constructor, and the solution is returned in the
+ * <tt>path</tt> and <tt>moves</tt> fields, which are <tt>null</tt> if
+ * there is none.
+ * <p>
+ * Each iteration splits the search tree at depth <tt>SPLIT_DEPTH</tt>:
+ * the states above it are expanded by tasks that fork one task per
+ * child, and each state at that depth is the root of a subtree that a
+ * single task searches depth-first, exactly as <tt>IDAStar</tt> does,
+ * on its own scratch <tt>State</tt> and <tt>CoordinateStack</tt>.  With some 13 moves per state in
+ * the half turn metric there are a few thousand subtrees, enough to
+ * keep every thread busy while the pool's work stealing evens out
+ * their very different sizes.
+ * <p>
+ * All tasks read the threshold of the current iteration from one shared
+ * field.  The first task to reach the goal sets a shared flag, which
+ * every task checks at each state, so the rest of the iteration is
+ * abandoned at once.  Any solution found in an iteration is a shortest
+ * one, since every shorter one would have been found by an earlier
+ * iteration.  Different runs may return different shortest solutions.
+ * <p>
+ * The heuristic is called from several threads at once, which all the
+ * heuristics here allow.  The count of generated states is added up
+ * per task and passed to the cube after each iteration, as
+ * <tt>RubiksCube.incrementSearchCount</tt> is not thread-safe.
+ */
+public class ParallelIDAStar {
+
+    /** The depth at which the search tree is split into subtrees. */
+    public final static int SPLIT_DEPTH = 3;
+
+    // larger than any threshold a search can return
+    private final static int INFINITY = Integer.MAX_VALUE;
+
+    /** The solution path is stored here */
+    public State[] path;
+
+    /**
+     * The moves of the solution are stored here, one fewer than the
+     * states of <tt>path</tt>, in the metric of the cube searched.
+     */
+    public int[] moves;
+
+    private RubiksCube puzzle;
+    private Heuristic heuristic;
+    private MovePruning pruning;
+    private int[] metricMoves;
+    private volatile int threshold;
+    private AtomicBoolean found = new AtomicBoolean();
+    // written only by the task that set found
+    private int[] solution;
+    private LongAdder generated = new LongAdder();
+    private int iterations;
+
+    /**
+     * This is the constructor that performs IDA* search to compute a
+     * solution for the given cube using the given heuristic, on the
+     * common pool.
+     */
+    public ParallelIDAStar(RubiksCube puzzle, Heuristic heuristic)
+    {
+        this(puzzle, heuristic, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This is the constructor that performs IDA* search to compute a
+     * solution for the given cube using the given heuristic, with the
+     * threads of the given pool.
+     */
+    public ParallelIDAStar(RubiksCube puzzle, Heuristic heuristic, ForkJoinPool pool)
+    {
+        this.puzzle = puzzle;
+        this.heuristic = heuristic;
+        pruning = puzzle.getMoveMetric().getPruning();
+        metricMoves = pruning.getMoves();
+
+        State initial = puzzle.getInitNode().getState();
+        threshold = heuristic.getValue(initial);
+        while (threshold != INFINITY)
+        {
+            iterations++;
+            Subtree root = new Subtree(initial.getCorners(), initial.getEdges(), new int[0],
+                                       MovePruning.START);
+            int next = pool.invoke(root);
+            puzzle.incrementSearchCount((int) generated.sumThenReset());
+            if (found.get())
+            {
+                solution(initial);
+                return;
+            }
+            threshold = next;
+        }
+    }
+
+    /** Returns the number of iterations, that is, of thresholds tried. */
+    public int getIterations()
+    {
+        return iterations;
+    }
+
+    // the search below one state, reached by the moves of <prefix>;
+    // returns the least f-value over the threshold that was cut off, or
+    // -1 when a solution is found
+    private class Subtree extends RecursiveTask<Integer>
+    {
+        private final static long serialVersionUID = 1L;
+
+        private long corners;
+        private long edges;
+        private int[] prefix;
+        private int pruneState;
+        private int limit;
+        private int children;
+        private CoordinateStack coordinates;
+
+        Subtree(long corners, long edges, int[] prefix, int pruneState)
+        {
+            this.corners = corners;
+            this.edges = edges;
+            this.prefix = prefix;
+            this.pruneState = pruneState;
+        }
+
+        protected Integer compute()
+        {
+            limit = threshold;
+            State state = new State(puzzle, corners, edges);
+            int result;
+            if (prefix.length < SPLIT_DEPTH)
+                result = split(state);
+            else
+            {
+                coordinates = CoordinateStack.of(heuristic);
+                int h = coordinates != null ? coordinates.setRoot(state) : heuristic.getValue(state);
+                result = search(state, java.util.Arrays.copyOf(prefix, limit + 1), prefix.length,
+                                pruneState, h);
+            }
+            generated.add(children);
+            return result;
+        }
+
+        // expands the state into one task per child
+        private int split(State state)
+        {
+            int depth = prefix.length;
+            int f = depth + heuristic.getValue(state);
+            if (f > limit)
+                return f;
+            if (state.isGoal())
+                return found(prefix, depth);
+
+            java.util.List<Subtree> tasks = new java.util.ArrayList<Subtree>();
+            for (int i = 0; i < metricMoves.length; i++)
+            {
+                int next = pruning.next(pruneState, i);
+                if (next < 0)
+                    continue;
+                int m = metricMoves[i];
+                int[] childPrefix = java.util.Arrays.copyOf(prefix, depth + 1);
+                childPrefix[depth] = m;
+                tasks.add(new Subtree(MoveKernels.corners(corners, m), MoveKernels.edges(edges, m),
+                                      childPrefix, next));
+            }
+            children += tasks.size();
+            invokeAll(tasks);
+
+            int least = INFINITY;
+            for (Subtree task : tasks)
+            {
+                int t = task.join();
+                if (t < 0)
+                    return t;
+                least = Math.min(least, t);
+            }
+            return least;
+        }
+
+        // searches below the scratch state, which is <depth> moves from
+        // the start and has heuristic value <h>, as IDAStar.search does,
+        // giving up once any task has found a solution
+        private int search(State state, int[] stack, int depth, int pruneState, int h)
+        {
+            if (found.get())
+                return INFINITY;
+            int f = depth + h;
+            if (f > limit)
+                return f;
+            if (state.isGoal())
+                return found(stack, depth);
+
+            int least = INFINITY;
+            for (int i = 0; i < metricMoves.length; i++)
+            {
+                int next = pruning.next(pruneState, i);
+                if (next < 0)
+                    continue;
+                int m = metricMoves[i];
+                children++;
+                state.apply(m);
+                stack[depth] = m;
+                int childH = coordinates != null ? coordinates.push(depth - prefix.length, m)
+                                                 : heuristic.getValue(state);
+                int t = search(state, stack, depth + 1, next, childH);
+                if (t < 0)
+                    return t;
+                state.undo(m);
+                least = Math.min(least, t);
+            }
+            return least;
+        }
+    }
+
+    // records the first <length> moves of <stack> as the solution, unless
+    // another task got there first
+    private int found(int[] stack, int length)
+    {
+        if (found.compareAndSet(false, true))
+            solution = java.util.Arrays.copyOf(stack, length);
+        return -1;
+    }
+
+    // fills in path and moves from the solution
+    private void solution(State initial)
+    {
+        moves = solution;
+        path = new State[moves.length + 1];
+        path[0] = initial;
+        long corners = initial.getCorners();
+        long edges = initial.getEdges();
+        for (int i = 0; i < moves.length; i++)
+        {
+            corners = MoveKernels.corners(corners, moves[i]);
+            edges = MoveKernels.edges(edges, moves[i]);
+            path[i + 1] = new State(puzzle, corners, edges);
+        }
+    }
+}
@@ -0,0 +1,732 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * This is a pattern database heuristic for the cube.  For every
+ * arrangement of the cubies of a <tt>CubiePattern</tt>, it stores the
+ * fewest moves that bring those cubies home, with all other cubies
+ * ignored.  That is never more than the moves needed to solve the
+ * whole cube, so the heuristic is admissible, and since a move changes
+ * the arrangement's distance by at most one it is consistent as well.
+ * <p>
+ * The table is generated by the constructor with a breadth-first
+ * search from the solved arrangement, one depth layer at a time, under
+ * the moves of the given <tt>MoveMetric</tt>.  Distances are stored in
+ * a <tt>PackedArray</tt> of 4-bit values; the value 15 marks
+ * arrangements not yet reached during generation.  Looking a state up
+ * takes one rank of its tracked cubies and one table read.
+ * <p>
+ * The table is indexed by a <tt>PatternIndex</tt>: the pattern itself,
+ * with one entry per arrangement; <tt>CornerCoordinates</tt>, the same
+ * for the corners but faster to move; or a
+ * <tt>SymmetryReducedPattern</tt>, with one entry per class of
+ * symmetric arrangements, which makes the corner table about 40 times
+ * smaller for a few more table reads per lookup.  Generation moves
+ * each arrangement by the coordinates of its numbering, so a child
+ * costs a few table reads rather than a full rank of packed cubies.
+ * <p>
+ * Alternatively the table can hold each distance mod 3, in 2 bits (the
+ * value 3 then marks the unreached), which halves its size.  Since
+ * neighbouring arrangements are at most one move apart in distance,
+ * the distances of the neighbours of an arrangement at distance
+ * <tt>d</tt> are <tt>d - 1</tt>, <tt>d</tt> or <tt>d + 1</tt>, and
+ * their residues tell them apart.  The true distance is then recovered
+ * either from the distance of the parent state, by
+ * <tt>getValue(state, parentValue)</tt> at the cost of one table read,
+ * or by <tt>getValue(state)</tt> without it, which follows neighbours
+ * one move closer all the way to the solved arrangement and so takes
+ * up to <tt>getMaxDepth()</tt> times as many moves and reads as the
+ * metric has moves.
+ * <p>
+ * Each layer is a fork-join task over the whole index range, split into
+ * chunks that the pool's threads scan in parallel.  Every arrangement
+ * of the current depth is expanded, and its unreached neighbours are
+ * claimed with <tt>PackedArray.compareAndSet</tt>, so that each is
+ * counted once however many threads reach it.  All threads finish a
+ * layer before the next one starts, which keeps the distances exact.
+ * With distances mod 3 a layer also expands the arrangements three,
+ * six, ... moves closer, which share its residue; their neighbours
+ * have all been reached already, so this costs time but changes
+ * nothing.
+ * <p>
+ * A generated database can be saved with <tt>save</tt> and brought back
+ * with <tt>load</tt>, which maps the file read-only instead of reading
+ * it into the heap.  The file starts with a header of
+ * <tt>HEADER_BYTES</tt> bytes, all numbers little-endian:
+ * <pre>
+ *   0  int    MAGIC
+ *   4  int    VERSION
+ *   8  int    bits per entry (4, or 2 for distances mod 3)
+ *  12  int    index scheme (one of the INDEX_ constants)
+ *  16  byte[] name of the MoveMetric, ASCII, zero padded to 16 bytes
+ *  32  byte   1 for a corner pattern, 0 for edges
+ *  33  byte   number of tracked cubies, followed by the cubies
+ *  48  int    greatest distance
+ *  56  long   number of entries
+ *  64  long   number of table bytes
+ *  72  long   CRC-32 of the table bytes
+ *  80  long   CRC-32 of header bytes 0 to 79
+ * </pre>
+ * and the table follows as the <tt>long</tt>s of its
+ * <tt>PackedArray</tt>.
+ * <p>
+ * The first lookups in a freshly loaded table wait for its pages to be
+ * read from disk.  <tt>warmUp</tt> reads them ahead of time on
+ * background threads, and returns a future that completes once all of
+ * them are in memory, so that a process can hold requests until then.
+ */
+public class PatternDatabase implements Heuristic {
+
+    final static int UNVISITED = 15;
+
+    /** The first four bytes of a pattern database file, "CPDB". */
+    public final static int MAGIC = 0x42445043;
+
+    /** The version of the file format written by <tt>save</tt>. */
+    public final static int VERSION = 2;
+
+    /** The index scheme of <tt>CubiePattern.rank</tt>. */
+    public final static int INDEX_CUBIE_RANK = 1;
+
+    /** The index scheme of <tt>SymmetryReducedPattern.rank</tt>. */
+    public final static int INDEX_SYMMETRY_CLASS = 2;
+
+    /** The index scheme of <tt>CornerCoordinates.rank</tt>. */
+    public final static int INDEX_CORNER_COORDINATES = 3;
+
+    /** The size of the file header, after which the table starts. */
+    public final static int HEADER_BYTES = 128;
+
+    // index ranges at most this long are scanned by a single task
+    private final static long CHUNK = 1 << 16;
+
+    private PatternIndex index;
+    private CubiePattern pattern;
+    private MoveMetric metric;
+    private PackedArray table;
+    private boolean mod3;
+    private int unvisited;
+    private long solved;
+    private int maxDepth;
+    private long checksum;
+    // the file header of a loaded database
+    private ByteBuffer header;
+
+    /**
+     * Generates the pattern database for the given pattern, numbered by
+     * <tt>index</tt>, under the moves of the given metric, on all cores
+     * of the common fork-join pool.  For the full corner pattern this
+     * visits all 88,179,840 corner arrangements.
+     */
+    public PatternDatabase(PatternIndex index, MoveMetric metric)
+    {
+        this(index, metric, ForkJoinPool.commonPool(), null);
+    }
+
+    /**
+     * Generates the pattern database for the given pattern, numbered by
+     * <tt>index</tt>, under the moves of the given metric, using the
+     * threads of <tt>pool</tt>.
+     * If <tt>progress</tt> is not <tt>null</tt>, a line is printed to
+     * it as each depth layer is completed.
+     */
+    public PatternDatabase(PatternIndex index, MoveMetric metric,
+                           ForkJoinPool pool, PrintStream progress)
+    {
+        this(index, metric, pool, progress, false);
+    }
+
+    /**
+     * Generates the pattern database as above, with its table outside
+     * the heap if <tt>offHeap</tt> is true (see
+     * <tt>PackedArray.offHeap</tt>).  That is the way to build the
+     * databases of seven or eight edges, whose 510,935,040 and
+     * 5,109,350,400 entries take 256MB and 2.5GB.
+     */
+    public PatternDatabase(PatternIndex index, MoveMetric metric,
+                           ForkJoinPool pool, PrintStream progress, boolean offHeap)
+    {
+        this(index, metric, pool, progress, offHeap, false);
+    }
+
+    /**
+     * Generates the pattern database as above, storing distances mod 3
+     * in 2 bits each if <tt>mod3</tt> is true, or exactly in 4 bits.
+     */
+    public PatternDatabase(PatternIndex index, MoveMetric metric,
+                           ForkJoinPool pool, PrintStream progress, boolean offHeap, boolean mod3)
+    {
+        this(index, metric, null, mod3);
+        int bits = mod3 ? 2 : 4;
+        this.table = offHeap ? PackedArray.offHeap(index.size(), bits, unvisited)
+                             : new PackedArray(index.size(), bits, unvisited);
+        generate(pool, progress);
+    }
+
+    // a database with the given table, which generate or load fills in
+    private PatternDatabase(PatternIndex index, MoveMetric metric, PackedArray table, boolean mod3)
+    {
+        this.index = index;
+        this.pattern = index.getPattern();
+        this.metric = metric;
+        this.table = table;
+        this.mod3 = mod3;
+        this.unvisited = mod3 ? 3 : UNVISITED;
+        this.solved = index.rank(pattern.isCorners() ? CubieTables.SOLVED_CORNERS
+                                                        : CubieTables.SOLVED_EDGES);
+    }
+
+    /**
+     * Returns the database of all eight corners under the given metric,
+     * indexed by the corner coordinates.
+     */
+    public static PatternDatabase corners(MoveMetric metric)
+    {
+        return new PatternDatabase(new CornerCoordinates(), metric);
+    }
+
+    /**
+     * Returns the database of all eight corners under the given metric,
+     * indexed by their classes under all 48 symmetries.
+     */
+    public static PatternDatabase reducedCorners(MoveMetric metric)
+    {
+        return new PatternDatabase(new SymmetryReducedPattern(CubiePattern.allCorners()), metric);
+    }
+
+    /**
+     * Returns the database of the given edges under the given metric.
+     * Six edges make 42,577,920 arrangements and seven 510,935,040.
+     */
+    public static PatternDatabase edges(int[] cubies, MoveMetric metric)
+    {
+        return new PatternDatabase(CubiePattern.edges(cubies), metric);
+    }
+
+    /**
+     * Returns the heuristic of the corner database together with two
+     * databases over disjoint halves of the edges, the first six and
+     * the last six, combined by taking the largest value.
+     */
+    public static Heuristic cornersAndEdges(MoveMetric metric)
+    {
+        return new MaxHeuristic(new Heuristic[]
+        {
+            corners(metric),
+            edges(new int[]{0, 1, 2, 3, 4, 5}, metric),
+            edges(new int[]{6, 7, 8, 9, 10, 11}, metric)
+        });
+    }
+
+    // breadth-first search: each pass expands every arrangement at the
+    // current depth and marks its unreached neighbours one deeper
+    private void generate(ForkJoinPool pool, PrintStream progress)
+    {
+        int[] moves = metric.getMoves();
+        table.set(solved, 0);
+        long start = System.currentTimeMillis();
+        if (progress != null)
+            progress.println("depth 0: 1 arrangement");
+
+        long reached = 1;
+        long total = 1;
+        int depth = 0;
+        while (reached > 0)
+        {
+            // a layer at the last storable depth marks nothing, since its
+            // next value is the unvisited one, but it still counts what it
+            // would have reached
+            reached = pool.invoke(new Layer(moves, depth, 0, table.size()));
+            if (reached > 0 && !mod3 && depth + 1 >= UNVISITED)
+                throw new IllegalStateException("Pattern is too deep for 4-bit distances");
+            if (reached > 0)
+            {
+                depth++;
+                total += reached;
+                if (progress != null)
+                    progress.println("depth " + depth + ": " + reached + " arrangements, "
+                                     + total + " of " + table.size() + " in "
+                                     + (System.currentTimeMillis() - start) + " ms");
+            }
+        }
+        maxDepth = depth;
+    }
+
+    // one layer of the search over the index range [from, to); returns
+    // the number of arrangements it claimed for the next depth
+    private class Layer extends RecursiveTask<Long>
+    {
+        private final static long serialVersionUID = 1L;
+
+        private int[] moves;
+        private int depth;
+        private long from;
+        private long to;
+        // the stored values of the current depth and the next one
+        private int current;
+        private int next;
+
+        Layer(int[] moves, int depth, long from, long to)
+        {
+            this.moves = moves;
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+            current = mod3 ? depth % 3 : depth;
+            next = mod3 ? (depth + 1) % 3 : depth + 1;
+        }
+
+        protected Long compute()
+        {
+            if (to - from > CHUNK)
+            {
+                // split on a multiple of 32 so each half owns whole words
+                long mid = (from + (to - from) / 2) & ~31L;
+                Layer left = new Layer(moves, depth, from, mid);
+                left.fork();
+                long right = new Layer(moves, depth, mid, to).compute();
+                return right + left.join();
+            }
+
+            long reached = 0;
+            for (long index = from; index < to; index++)
+            {
+                if (table.get(index) != current)
+                    continue;
+                PatternIndex numbering = PatternDatabase.this.index;
+                long coordinates = numbering.unrankCoordinates(index);
+                for (int m : moves)
+                {
+                    long child = numbering.rankCoordinates(numbering.moveCoordinates(coordinates, m));
+                    if (table.get(child) == unvisited
+                        && table.compareAndSet(child, unvisited, next))
+                        reached++;
+                }
+            }
+            return reached;
+        }
+    }
+
+    /**
+     * Writes this database to the given file, in the format described
+     * above.  The file is written in full before it replaces any file
+     * of the same name, so that processes mapping the old file never
+     * see a partly written one.
+     */
+    public void save(File file) throws IOException
+    {
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE))
+            {
+                CRC32 crc = new CRC32();
+                channel.position(HEADER_BYTES);
+                table.writeTo(channel, crc);
+                ByteBuffer header = header(crc.getValue());
+                while (header.hasRemaining())
+                    channel.write(header, header.position());
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private ByteBuffer header(long checksum)
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, table.getBits());
+        header.putInt(12, index.getScheme());
+        byte[] name = metric.name().getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < name.length; i++)
+            header.put(16 + i, name[i]);
+        int[] cubies = pattern.getCubies();
+        header.put(32, (byte) (pattern.isCorners() ? 1 : 0));
+        header.put(33, (byte) cubies.length);
+        for (int t = 0; t < cubies.length; t++)
+            header.put(34 + t, (byte) cubies[t]);
+        header.putInt(48, maxDepth);
+        header.putLong(56, table.size());
+        header.putLong(64, PackedArray.byteCount(table.size(), table.getBits()));
+        header.putLong(72, checksum);
+        header.putLong(80, headerChecksum(header));
+        return header;
+    }
+
+    // the CRC-32 of the header fields before the header's own checksum
+    private static long headerChecksum(ByteBuffer header)
+    {
+        CRC32 crc = new CRC32();
+        ByteBuffer fields = header.duplicate();
+        fields.clear().limit(80);
+        crc.update(fields);
+        return crc.getValue();
+    }
+
+    /**
+     * Loads a database saved by <tt>save</tt>, mapping its table
+     * read-only in chunks, so tables of any size can be loaded without
+     * taking room on the heap.  This reads only the header, whose
+     * fields are checked against the header checksum before any is
+     * used; table pages are brought in as lookups touch them.  The
+     * table checksum is not computed, since that would read the whole
+     * table; call <tt>verify</tt> for that.
+     *
+     * @throws IOException if the file cannot be read, or is not a
+     *         pattern database of a version and layout this class reads
+     */
+    public static PatternDatabase load(File file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining())
+            {
+                if (channel.read(header, header.position()) < 0)
+                    throw new IOException(file + " is too short for a pattern database");
+            }
+            if (header.getInt(0) != MAGIC)
+                throw new IOException(file + " is not a pattern database");
+            if (header.getInt(4) != VERSION)
+                throw new IOException(file + " has format version " + header.getInt(4)
+                                      + ", expected " + VERSION);
+            if (header.getLong(80) != headerChecksum(header))
+                throw new IOException(file + " has a damaged header");
+            int bits = header.getInt(8);
+            int scheme = header.getInt(12);
+            if ((bits != 2 && bits != 4)
+                || scheme < INDEX_CUBIE_RANK || scheme > INDEX_CORNER_COORDINATES)
+                throw new IOException(file + " has an unknown table layout");
+
+            StringBuilder name = new StringBuilder();
+            for (int i = 16; i < 32 && header.get(i) != 0; i++)
+                name.append((char) header.get(i));
+            MoveMetric metric;
+            try
+            {
+                metric = MoveMetric.valueOf(name.toString());
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException(file + " has unknown metric " + name);
+            }
+
+            int kind = header.get(32);
+            int slots = kind == 1 ? CubieTables.NUM_CORNERS : CubieTables.NUM_EDGES;
+            int[] cubies = new int[header.get(33) & 0xff];
+            if ((kind != 0 && kind != 1) || cubies.length < 1 || cubies.length > slots)
+                throw new IOException(file + " has an invalid pattern");
+            for (int t = 0; t < cubies.length; t++)
+            {
+                cubies[t] = header.get(34 + t) & 0xff;
+                if (cubies[t] >= slots)
+                    throw new IOException(file + " has an invalid pattern");
+            }
+            PatternIndex index;
+            try
+            {
+                CubiePattern pattern = new CubiePattern(kind == 1, cubies);
+                index = pattern;
+                if (scheme == INDEX_SYMMETRY_CLASS)
+                    index = new SymmetryReducedPattern(pattern);
+                else if (scheme == INDEX_CORNER_COORDINATES)
+                    index = new CornerCoordinates();
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException(file + " has an invalid pattern: " + e.getMessage());
+            }
+
+            long size = header.getLong(56);
+            if (size != index.size() || header.getLong(64) != PackedArray.byteCount(size, bits)
+                || channel.size() < HEADER_BYTES + header.getLong(64))
+                throw new IOException(file + " does not hold a complete table for its pattern");
+
+            PatternDatabase pdb = new PatternDatabase(index, metric,
+                PackedArray.map(channel, HEADER_BYTES, size, bits), bits == 2);
+            pdb.maxDepth = header.getInt(48);
+            pdb.checksum = header.getLong(72);
+            pdb.header = header;
+            return pdb;
+        }
+    }
+
+    /**
+     * Starts bringing the table of a loaded database into memory, one
+     * segment per task on the given executor, and returns a future that
+     * completes with this database when all segments are in.  Only a
+     * table on the heap has no segments, so only then is the future
+     * already complete; a table generated off the heap is walked like a
+     * loaded one, although generation has normally left its pages in
+     * memory.
+     */
+    public CompletableFuture<PatternDatabase> warmUp(Executor executor)
+    {
+        CompletableFuture<?>[] segments = new CompletableFuture<?>[table.segmentCount()];
+        for (int i = 0; i < segments.length; i++)
+        {
+            final int segment = i;
+            segments[i] = CompletableFuture.runAsync(new Runnable()
+            {
+                public void run()
+                {
+                    table.prefetch(segment);
+                }
+            }, executor);
+        }
+        final PatternDatabase pdb = this;
+        return CompletableFuture.allOf(segments).thenApply(new java.util.function.Function<Void, PatternDatabase>()
+        {
+            public PatternDatabase apply(Void done)
+            {
+                return pdb;
+            }
+        });
+    }
+
+    /**
+     * Starts warming up every pattern database in the given heuristic,
+     * looking inside <tt>MaxHeuristic</tt>s, and returns a future that
+     * completes when all of them are warm.
+     */
+    public static CompletableFuture<Void> warmUp(Heuristic heuristic, Executor executor)
+    {
+        if (heuristic instanceof PatternDatabase)
+            return CompletableFuture.allOf(((PatternDatabase) heuristic).warmUp(executor));
+        if (heuristic instanceof MaxHeuristic)
+        {
+            Heuristic[] parts = ((MaxHeuristic) heuristic).getHeuristics();
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[parts.length];
+            for (int i = 0; i < parts.length; i++)
+                futures[i] = warmUp(parts[i], executor);
+            return CompletableFuture.allOf(futures);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // the pattern databases that make up the given heuristic, looking
+    // inside MaxHeuristics, or null if it has any other part
+    static PatternDatabase[] databasesOf(Heuristic heuristic)
+    {
+        java.util.ArrayList<PatternDatabase> databases = new java.util.ArrayList<PatternDatabase>();
+        if (!collect(heuristic, databases) || databases.isEmpty())
+            return null;
+        return databases.toArray(new PatternDatabase[databases.size()]);
+    }
+
+    private static boolean collect(Heuristic heuristic, java.util.List<PatternDatabase> databases)
+    {
+        if (heuristic instanceof PatternDatabase)
+        {
+            databases.add((PatternDatabase) heuristic);
+            return true;
+        }
+        if (!(heuristic instanceof MaxHeuristic))
+            return false;
+        for (Heuristic part : ((MaxHeuristic) heuristic).getHeuristics())
+            if (!collect(part, databases))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns true if every move of the given metric is a move of this
+     * database's metric, so that a state one such move from another is
+     * within one of its value, as <tt>getValue(state, parentValue)</tt>
+     * needs.
+     */
+    public boolean covers(MoveMetric moves)
+    {
+        return moves.getMoves().length <= metric.getMoves().length;
+    }
+
+    /**
+     * Returns true if the header and the table of a loaded database
+     * match the checksums in its file header.  This reads the whole
+     * table.  Databases generated in this process always match.
+     */
+    public boolean verify()
+    {
+        if (!table.isReadOnly())
+            return true;
+        if (header.getLong(80) != headerChecksum(header))
+            return false;
+        CRC32 crc = new CRC32();
+        table.update(crc);
+        return crc.getValue() == checksum;
+    }
+
+    /** Returns the pattern this database was built for. */
+    public CubiePattern getPattern()
+    {
+        return pattern;
+    }
+
+    /** Returns the numbering of the pattern's arrangements that indexes the table. */
+    public PatternIndex getIndex()
+    {
+        return index;
+    }
+
+    /** Returns the metric whose moves the distances count. */
+    public MoveMetric getMoveMetric()
+    {
+        return metric;
+    }
+
+    /** Returns true if the table holds distances mod 3 rather than exactly. */
+    public boolean isMod3()
+    {
+        return mod3;
+    }
+
+    /** Returns the greatest distance in the database. */
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the value of the heuristic, the stored distance of the
+     * arrangement of the pattern's cubies in the given state.
+     */
+    public int getValue(State state)
+    {
+        return getValueAt(getCoordinates(state));
+    }
+
+    /**
+     * Stores the values of the heuristic at the given states.  All the
+     * indices are computed first and then all the table entries read,
+     * so that the reads, which mostly miss the cache, are issued back
+     * to back and overlap rather than each waiting on the last.  With
+     * distances mod 3 each value is recovered by <tt>getValue</tt>;
+     * searches that know the value of the states' parent should use
+     * <tt>getValues(states, parentValue, values)</tt> instead.
+     */
+    public void getValues(State[] states, int[] values)
+    {
+        if (mod3)
+        {
+            for (int i = 0; i < states.length; i++)
+                values[i] = getValue(states[i]);
+            return;
+        }
+        long[] indices = new long[states.length];
+        for (int i = 0; i < states.length; i++)
+            indices[i] = index.rankCoordinates(getCoordinates(states[i]));
+        for (int i = 0; i < states.length; i++)
+            values[i] = table.get(indices[i]);
+    }
+
+    /**
+     * Stores the values of the heuristic at the given states, each one
+     * move from a state whose value is <tt>parentValue</tt>, as for
+     * <tt>getValue(state, parentValue)</tt>.  Like
+     * <tt>getValues(states, values)</tt> it issues the table reads back
+     * to back, and with distances mod 3 it takes one read per state.
+     */
+    public void getValues(State[] states, int parentValue, int[] values)
+    {
+        long[] indices = new long[states.length];
+        for (int i = 0; i < states.length; i++)
+            indices[i] = index.rankCoordinates(getCoordinates(states[i]));
+        for (int i = 0; i < states.length; i++)
+            values[i] = fromStored(table.get(indices[i]), parentValue);
+    }
+
+    /**
+     * Returns the value of the heuristic at a state one move from a
+     * state whose value (from this database, not from a combination of
+     * heuristics) is <tt>parentValue</tt>.  The move must be one of this
+     * database's metric (see <tt>covers</tt>).  With distances mod 3
+     * this takes a single table read, where <tt>getValue(state)</tt>
+     * takes many.
+     */
+    public int getValue(State state, int parentValue)
+    {
+        return getValueAt(getCoordinates(state), parentValue);
+    }
+
+    /**
+     * Returns the coordinates, in the numbering of <tt>getIndex()</tt>,
+     * of the arrangement of the pattern's cubies in the given state.
+     * A search can move them along with the state, by
+     * <tt>getIndex().moveCoordinates</tt>, and look them up with
+     * <tt>getValueAt</tt>.
+     */
+    public long getCoordinates(State state)
+    {
+        return index.coordinates(pattern.word(state));
+    }
+
+    /** Returns the value of the heuristic at the arrangement with the given coordinates. */
+    public int getValueAt(long coordinates)
+    {
+        long i = index.rankCoordinates(coordinates);
+        if (!mod3)
+            return table.get(i);
+
+        // follow neighbours one move closer down to the solved arrangement
+        int[] moves = metric.getMoves();
+        int residue = table.get(i);
+        int distance = 0;
+        while (i != solved)
+        {
+            int closer = (residue + 2) % 3;
+            for (int m : moves)
+            {
+                long c = index.moveCoordinates(coordinates, m);
+                long j = index.rankCoordinates(c);
+                if (table.get(j) == closer)
+                {
+                    coordinates = c;
+                    i = j;
+                    break;
+                }
+            }
+            residue = closer;
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * Returns the value of the heuristic at the arrangement with the
+     * given coordinates, one move from an arrangement whose value is
+     * <tt>parentValue</tt>, as for <tt>getValue(state, parentValue)</tt>.
+     */
+    public int getValueAt(long coordinates, int parentValue)
+    {
+        return fromStored(table.get(index.rankCoordinates(coordinates)), parentValue);
+    }
+
+    // the value of a table entry one move from an arrangement whose
+    // value is <parentValue>
+    private int fromStored(int stored, int parentValue)
+    {
+        if (!mod3)
+            return stored;
+        // the residue tells parentValue - 1, parentValue and parentValue + 1 apart
+        switch ((stored - parentValue % 3 + 3) % 3)
+        {
+            case 0: return parentValue;
+            case 1: return parentValue + 1;
+            default: return parentValue - 1;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class contains a simple main for checking a generated pattern
+ * database: the corner database in the quarter turn metric, whose
+ * deepest arrangements are 14 moves from home, the most that 4-bit
+ * distances can hold.  It prints each depth layer as it is built, then
+ * checks that the depth is 14, that the solved cube has value 0, and
+ * that along random walks of quarter turns the value never exceeds the
+ * number of moves made and changes by at most one per move.
+ */
+public class PatternDatabaseCheck
+{
+    private static final int WALKS = 1000;
+    private static final int WALK_LENGTH = 30;
+
+    public static void main(String argv[])
+    {
+        MoveMetric metric = MoveMetric.QUARTER_TURN;
+        PatternDatabase corners = new PatternDatabase(new CornerCoordinates(), metric,
+                                                      ForkJoinPool.commonPool(), System.out);
+        int failures = 0;
+        if (corners.getMaxDepth() != 14)
+        {
+            System.out.println("depth " + corners.getMaxDepth() + ", expected 14");
+            failures++;
+        }
+
+        RubiksCube solved = RubiksCube.fromScramble("solved", "", metric);
+        State state = solved.getInitNode().getState();
+        if (corners.getValue(state) != 0)
+        {
+            System.out.println("solved cube has value " + corners.getValue(state));
+            failures++;
+        }
+
+        int[] moves = metric.getMoves();
+        Random random = new Random(42);
+        for (int walk = 0; walk < WALKS; walk++)
+        {
+            long c = CubieTables.SOLVED_CORNERS;
+            long e = CubieTables.SOLVED_EDGES;
+            int value = 0;
+            for (int i = 1; i <= WALK_LENGTH; i++)
+            {
+                int m = moves[random.nextInt(moves.length)];
+                c = MoveKernels.corners(c, m);
+                e = MoveKernels.edges(e, m);
+                int next = corners.getValue(new State(solved, c, e));
+                if (next > i || Math.abs(next - value) > 1)
+                {
+                    System.out.println("walk " + walk + " move " + i + ": value " + value
+                                       + " then " + next);
+                    failures++;
+                }
+                value = next;
+            }
+        }
+
+        System.out.println(failures == 0 ? "ok" : failures + " failures");
+    }
+}
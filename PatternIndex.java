@@ -0,0 +1,52 @@
+/**
+ * This is the interface for the numbering of the arrangements of a
+ * <tt>CubiePattern</tt> that a <tt>PatternDatabase</tt> is indexed by.
+ * Arrangements are given as packed words, as in <tt>State</tt>, of
+ * which only the tracked cubies matter.  Every arrangement must get an
+ * index below <tt>size()</tt>, and arrangements that get the same index
+ * must be the same number of moves from home.
+ * <p>
+ * A numbering also has coordinates for arrangements: a form, packed in
+ * a <tt>long</tt>, that moves update with a few table reads (see
+ * <tt>MoveTables</tt>) and that ranks more cheaply than a packed word.
+ * What the coordinates hold is up to the numbering; they are only ever
+ * passed back to its own methods.  Searches that keep the coordinates
+ * of each state can get the index of a child without going through
+ * its packed cubies.
+ */
+public interface PatternIndex {
+
+    /** Returns the pattern whose arrangements are numbered. */
+    public CubiePattern getPattern();
+
+    /** Returns one more than the largest index. */
+    public long size();
+
+    /** Returns the index of the arrangement in a packed word. */
+    public long rank(long word);
+
+    /**
+     * Returns a packed word with an arrangement whose index is
+     * <tt>index</tt>.
+     */
+    public long unrank(long index);
+
+    /** Returns the coordinates of the arrangement in a packed word. */
+    public long coordinates(long word);
+
+    /** Returns the coordinates of the arrangement after <tt>move</tt>. */
+    public long moveCoordinates(long coordinates, int move);
+
+    /** Returns the index of the arrangement with the given coordinates. */
+    public long rankCoordinates(long coordinates);
+
+    /** Returns the coordinates of an arrangement whose index is <tt>index</tt>. */
+    public long unrankCoordinates(long index);
+
+    /**
+     * Returns the number that identifies this numbering in the header
+     * of a pattern database file, such as
+     * <tt>PatternDatabase.INDEX_CUBIE_RANK</tt>.
+     */
+    public int getScheme();
+}
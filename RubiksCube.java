@@ -39,6 +39,34 @@ public class RubiksCube
 	};
     final static int[] CW_ROTATION = new int[]{2, 5, 8, 1, 4, 7, 0, 3, 6};
 
+    // every move the cube knows: first the 12 quarter turns (move 2 * face
+    // is clockwise, 2 * face + 1 counterclockwise), then the 6 half turns
+    // (12 + face), then the middle, equator and standing slice turns
+    final static int NUM_MOVES = 27;
+    final static String[] MOVE_NAMES = new String[]
+    {
+        "F", "F'", "L", "L'", "R", "R'", "U", "U'", "D", "D'", "B", "B'",
+        "F2", "L2", "R2", "U2", "D2", "B2",
+        "M", "M'", "M2", "E", "E'", "E2", "S", "S'", "S2"
+    };
+    final static int FIRST_HALF_TURN = 12;
+    final static int FIRST_SLICE_TURN = 18;
+    // the centers never move in our model, so each slice turn is the pair
+    // of outer turns it equals once the whole cube is turned back:
+    // M = L' R, E = U D', S = F' B.  A standard slice turn also carries
+    // the centers, turning the whole cube, so formatMoves and parseMoves
+    // name the faces of the moves after it by where they then are
+    final static int[][] SLICE_TURNS = new int[][]
+    {
+        {3, 4}, {2, 5}, {13, 14},
+        {6, 9}, {7, 8}, {15, 16},
+        {1, 10}, {0, 11}, {12, 17}
+    };
+    // the face each slice (M, E, S) turns like, and the face opposite
+    // each face
+    final static int[] SLICE_FACE = new int[]{1, 4, 0};
+    final static int[] OPPOSITE_FACE = new int[]{5, 2, 1, 4, 3, 0};
+
     private String name;
     // 0 = face
     // 1 = left
@@ -50,6 +78,7 @@ public class RubiksCube
 
     private Node initNode;
     private int searchCount;
+    private MoveMetric metric;
 
     
     /** Increments the search counter by <tt>d</tt>. */
@@ -95,6 +124,229 @@ public class RubiksCube
     	return null;
     }
 
+    /** Returns the set of moves that searches on this cube may make. */
+    public MoveMetric getMoveMetric()
+    {
+        return metric;
+    }
+
+    /**
+     * Changes the set of moves that searches on this cube may make.
+     * Every move counts as one step of the solution, so this also
+     * decides what a shortest solution is.
+     */
+    public void setMoveMetric(MoveMetric metric)
+    {
+        this.metric = metric;
+    }
+
+    /** Returns the move that undoes <tt>move</tt>. */
+    public static int inverseMove(int move)
+    {
+        if (move < FIRST_HALF_TURN)
+            return move ^ 1;
+        if (move < FIRST_SLICE_TURN)
+            return move;
+        // M and M' undo each other, M2 undoes itself; likewise E and S
+        int kind = (move - FIRST_SLICE_TURN) % 3;
+        return kind == 2 ? move : move + 1 - 2 * kind;
+    }
+
+    // the face a move turns like
+    private static int turnFace(int move)
+    {
+        if (move < FIRST_HALF_TURN)
+            return move / 2;
+        if (move < FIRST_SLICE_TURN)
+            return move - FIRST_HALF_TURN;
+        return SLICE_FACE[(move - FIRST_SLICE_TURN) / 3];
+    }
+
+    // how many clockwise quarter turns a move makes of its face
+    private static int quarterTurns(int move)
+    {
+        if (move < FIRST_HALF_TURN)
+            return (move & 1) == 0 ? 1 : 3;
+        if (move < FIRST_SLICE_TURN)
+            return 2;
+        int kind = (move - FIRST_SLICE_TURN) % 3;
+        return kind == 0 ? 1 : kind == 1 ? 3 : 2;
+    }
+
+    // the outer turn, or slice turn if <slice>, that turns like <face> by
+    // <quarters> clockwise quarter turns; a slice turns like either of
+    // its two faces, the opposite one the other way
+    private static int turnOf(boolean slice, int face, int quarters)
+    {
+        int kind = quarters == 1 ? 0 : quarters == 3 ? 1 : 2;
+        if (!slice)
+            return kind == 2 ? FIRST_HALF_TURN + face : 2 * face + kind;
+        for (int s = 0; s < SLICE_FACE.length; s++)
+        {
+            if (SLICE_FACE[s] == face)
+                return FIRST_SLICE_TURN + 3 * s + kind;
+            if (SLICE_FACE[s] == OPPOSITE_FACE[face])
+                return FIRST_SLICE_TURN + 3 * s + (kind == 2 ? 2 : 1 - kind);
+        }
+        throw new AssertionError();
+    }
+
+    // turns the whole cube like <face> by <quarters> clockwise quarter
+    // turns, where at[c] is the face where the center of colour c is
+    private static void turnCube(int[] at, int face, int quarters)
+    {
+        for (int c = 0; c < NUM_FACES; c++)
+            for (int k = 0; k < 4; k++)
+                if (turns[face][k][0] == at[c])
+                {
+                    at[c] = turns[face][(k + quarters) % 4][0];
+                    break;
+                }
+    }
+
+    // the centers of a solved cube, each on its own face
+    private static int[] solvedCenters()
+    {
+        int[] at = new int[NUM_FACES];
+        for (int c = 0; c < NUM_FACES; c++)
+            at[c] = c;
+        return at;
+    }
+
+    /**
+     * Returns the given moves in standard notation, separated by spaces.
+     * Faces are named by where they are rather than by their centers: a
+     * standard slice turn carries the centers along, where ours leaves
+     * them be (see <tt>SLICE_TURNS</tt>), so every move after one is
+     * named for the face now in its place.  For example, the moves M B
+     * are written "M U".
+     */
+    public static String formatMoves(int[] moves)
+    {
+        StringBuilder sb = new StringBuilder();
+        int[] at = solvedCenters();
+        for (int i = 0; i < moves.length; i++)
+        {
+            if (i > 0)
+                sb.append(' ');
+            boolean slice = moves[i] >= FIRST_SLICE_TURN;
+            int face = at[turnFace(moves[i])];
+            int quarters = quarterTurns(moves[i]);
+            sb.append(MOVE_NAMES[turnOf(slice, face, quarters)]);
+            if (slice)
+                turnCube(at, face, quarters);
+        }
+        return sb.toString();
+    }
+
+    // checks that the centers have six colours and every colour is on
+    // exactly one face's worth of stickers
+    private static void checkStickers(int[][] faces)
+    {
+        for (int i = 0; i < NUM_FACES; i++)
+            for (int j = 0; j < i; j++)
+                if (faces[j][FACE_SIZE / 2] == faces[i][FACE_SIZE / 2])
+                    throw new IllegalArgumentException("Centers must have different colors");
+
+        for (int i = 0; i < NUM_FACES; i++)
+        {
+            int color = faces[i][FACE_SIZE / 2];
+            int count = 0;
+            for (int j = 0; j < NUM_FACES; j++)
+                for (int k = 0; k < FACE_SIZE; k++)
+                    if (faces[j][k] == color)
+                        count++;
+            if (count != FACE_SIZE)
+                throw new IllegalArgumentException("Color " + color + " appears " + count
+                                                   + " times instead of " + FACE_SIZE);
+        }
+    }
+
+    /**
+     * Parses a sequence of moves in standard notation, such as
+     * <tt>"R U R' U' F2"</tt>, into indices into <tt>MOVE_NAMES</tt>.
+     * Each move is a face letter (F, L, R, U, D, B) or a slice letter
+     * (M, E, S), optionally followed by <tt>'</tt> for a counterclockwise
+     * turn or <tt>2</tt> for a half turn; whitespace between moves is
+     * optional.  An <tt>IllegalArgumentException</tt> is thrown if the
+     * string contains anything else.
+     * <p>
+     * As in <tt>formatMoves</tt>, a face letter names the face where it
+     * is, and a slice turn also turns the whole cube, so the moves after
+     * it are translated to the faces whose centers are now there: "M U"
+     * is the moves M B.
+     */
+    public static int[] parseMoves(String notation)
+    {
+        ArrayList<Integer> moves = new ArrayList<Integer>();
+        int[] at = solvedCenters();
+        int i = 0;
+        while (i < notation.length())
+        {
+            char c = notation.charAt(i);
+            if (Character.isWhitespace(c))
+            {
+                i++;
+                continue;
+            }
+
+            String name = String.valueOf(c);
+            i++;
+            if (i < notation.length()
+                && (notation.charAt(i) == '\'' || notation.charAt(i) == '2'))
+            {
+                name += notation.charAt(i);
+                i++;
+            }
+            // a half turn is its own inverse, so accept "2'" as well
+            if (name.endsWith("2") && i < notation.length() && notation.charAt(i) == '\'')
+                i++;
+
+            int move = -1;
+            for (int m = 0; m < NUM_MOVES; m++)
+                if (MOVE_NAMES[m].equals(name))
+                    move = m;
+            if (move < 0)
+                throw new IllegalArgumentException("Unknown move \"" + name + "\" in \""
+                                                   + notation + "\"");
+
+            boolean slice = move >= FIRST_SLICE_TURN;
+            int place = turnFace(move);
+            int quarters = quarterTurns(move);
+            int face = 0;
+            while (at[face] != place)
+                face++;
+            moves.add(turnOf(slice, face, quarters));
+            if (slice)
+                turnCube(at, place, quarters);
+        }
+
+        int[] result = new int[moves.size()];
+        for (int k = 0; k < result.length; k++)
+            result[k] = moves.get(k);
+        return result;
+    }
+
+    /**
+     * Constructs the cube obtained by making the given moves, in
+     * standard notation, from the solved cube.  Face <tt>i</tt> of the
+     * solved cube has colour <tt>i</tt>.  The moves are read as by
+     * <tt>parseMoves</tt>, so after any slice turns the cube is turned
+     * back to keep the center of colour <tt>i</tt> on face <tt>i</tt>.
+     */
+    public static RubiksCube fromScramble(String name, String scramble, MoveMetric metric)
+    {
+        byte[] solved = new byte[NUM_FACES * FACE_SIZE];
+        int[] colors = new int[NUM_FACES];
+        for (int p = 0; p < solved.length; p++)
+            solved[p] = (byte) (p / FACE_SIZE);
+        for (int i = 0; i < NUM_FACES; i++)
+            colors[i] = i;
+
+        byte[] scrambled = FaceletPermutation.of(parseMoves(scramble)).apply(solved);
+        return new RubiksCube(name, FaceletPermutation.toFaces(scrambled, colors), metric);
+    }
+
     /** Returns the initial (root) node of this puzzle. */
     public Node getInitNode() {
         return initNode;
@@ -105,20 +357,45 @@ public class RubiksCube
      * <faces> should be a 2D array of 6 1D arrays of length 9
      * Each 1D array corresponds to a face of the rubiks cube
      * in the following order: f, l, r, u, d, b
+     * <p>
+     * The cube is checked to be one that can actually be solved, and an
+     * <tt>IllegalArgumentException</tt> is thrown if it cannot: if the
+     * faces have the wrong sizes, if the centers do not have six
+     * different colours, if some colour does not appear exactly nine
+     * times, if some corner or edge is not a real cubie or appears twice,
+     * if the corners are twisted or the edges flipped in a way no
+     * sequence of moves can produce, or if the corner and edge
+     * permutations have different parities.
  	**/
     public RubiksCube(String name, int[][] input_faces) 
+    {
+        this(name, input_faces, MoveMetric.QUARTER_TURN);
+    }
+
+    /**
+     * Constructs a rubiks cube as above, whose searches use the moves
+     * of the given metric.
+     **/
+    public RubiksCube(String name, int[][] input_faces, MoveMetric metric) 
     {
         this.name = name;
+        this.metric = metric;
         
-        assert (input_faces.length == NUM_FACES);
+        if (input_faces.length != NUM_FACES)
+            throw new IllegalArgumentException("A cube must have " + NUM_FACES + " faces");
 
         for (int i = 0; i < NUM_FACES; i++)
         {
-        	assert (input_faces.length == FACE_SIZE);
+            if (input_faces[i].length != FACE_SIZE)
+                throw new IllegalArgumentException("Each face must have " + FACE_SIZE + " stickers");
         	System.arraycopy(input_faces[i], 0, this.faces[i], 0, FACE_SIZE);
         }
+
+        checkStickers(faces);
+        State initState = new State(this, faces);
+        CubieTables.checkSolvable(initState.getCorners(), initState.getEdges());
         
-        //initNode = new Node(new State(this, null), 0, null);
+        initNode = new Node(initState, 0, null);
         
         resetSearchCount();
     }
@@ -34,7 +34,10 @@ public class RubiksCubeTest
             {5, 5, 5, 5, 5, 5, 5, 5, 5}
         };
 
-        RubiksCube rb = new RubiksCube("test", faces);
+        // a scramble in standard notation may be given instead, e.g. "R U R' U'"
+        RubiksCube rb = argv.length > 0
+            ? RubiksCube.fromScramble("test", String.join(" ", argv), MoveMetric.QUARTER_TURN)
+            : new RubiksCube("test", faces);
         /*
         for (int i = 0; i < faces.length; i++)
         {
@@ -0,0 +1,143 @@
+import java.util.*;
+
+/**
+ * This class generates reproducible workloads of scrambled cubes for
+ * benchmarking and load-testing the solvers.  A generator is seeded,
+ * so the same seed always gives the same cubes in the same order.
+ * Two kinds of cube can be made:
+ * <ul>
+ * <li>random-move scrambles of a given length, with no move that the
+ *     <tt>MovePruning</tt> automaton of the metric would prune, so the
+ *     scramble does not undo or repeat itself;
+ * <li>uniformly random states, drawn directly as random permutations
+ *     and orientations of the cubies and then corrected to be
+ *     solvable, which are far harder on average than short scrambles.
+ * </ul>
+ */
+public class ScrambleGenerator
+{
+    private Random random;
+    private MoveMetric metric;
+
+    /**
+     * Constructs a generator with the given seed, whose scrambles and
+     * cubes use the moves of the given metric.
+     */
+    public ScrambleGenerator(long seed, MoveMetric metric)
+    {
+        this.random = new Random(seed);
+        this.metric = metric;
+    }
+
+    /** Returns a random sequence of <tt>length</tt> moves. */
+    public int[] randomMoves(int length)
+    {
+        MovePruning pruning = metric.getPruning();
+        int[] choices = pruning.getMoves();
+        int[] moves = new int[length];
+        int state = MovePruning.START;
+        for (int k = 0; k < length; k++)
+        {
+            int i;
+            do
+            {
+                i = random.nextInt(choices.length);
+            }
+            while (pruning.next(state, i) < 0);
+            moves[k] = choices[i];
+            state = pruning.next(state, i);
+        }
+        return moves;
+    }
+
+    /** Returns the cube obtained by scrambling with <tt>length</tt> random moves. */
+    public RubiksCube randomScramble(String name, int length)
+    {
+        return RubiksCube.fromScramble(name, RubiksCube.formatMoves(randomMoves(length)), metric);
+    }
+
+    /** Returns a cube drawn uniformly at random from all solvable cubes. */
+    public RubiksCube randomState(String name)
+    {
+        int[] cornerPerm = shuffled(CubieTables.NUM_CORNERS);
+        int[] edgePerm = shuffled(CubieTables.NUM_EDGES);
+
+        long corners = 0;
+        int twist = 0;
+        for (int i = 0; i < CubieTables.NUM_CORNERS; i++)
+        {
+            int ori = i < CubieTables.NUM_CORNERS - 1 ? random.nextInt(3) : (3 - twist % 3) % 3;
+            twist += ori;
+            corners |= (long) (cornerPerm[i] | ori << CubieTables.CORNER_ORI_SHIFT)
+                << (CubieTables.FIELD_BITS * i);
+        }
+
+        long edges = 0;
+        int flip = 0;
+        for (int i = 0; i < CubieTables.NUM_EDGES; i++)
+        {
+            int ori = i < CubieTables.NUM_EDGES - 1 ? random.nextInt(2) : flip % 2;
+            flip += ori;
+            edges |= (long) (edgePerm[i] | ori << CubieTables.EDGE_ORI_SHIFT)
+                << (CubieTables.FIELD_BITS * i);
+        }
+
+        // with mismatched parities, swapping two edges gives a solvable cube
+        // and keeps the distribution uniform
+        if (CubieTables.permutationParity(corners, CubieTables.NUM_CORNERS,
+                                          CubieTables.CUBIE_MASK_CORNER)
+            != CubieTables.permutationParity(edges, CubieTables.NUM_EDGES,
+                                             CubieTables.CUBIE_MASK_EDGE))
+        {
+            long first = edges & CubieTables.FIELD_MASK;
+            long second = (edges >>> CubieTables.FIELD_BITS) & CubieTables.FIELD_MASK;
+            edges = (edges & ~((1L << (2 * CubieTables.FIELD_BITS)) - 1))
+                | second | first << CubieTables.FIELD_BITS;
+        }
+
+        int[] colors = new int[RubiksCube.NUM_FACES];
+        for (int i = 0; i < colors.length; i++)
+            colors[i] = i;
+        return new RubiksCube(name, CubieTables.toFaces(corners, edges, colors), metric);
+    }
+
+    // a uniformly random permutation of 0..n-1
+    private int[] shuffled(int n)
+    {
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++)
+            perm[i] = i;
+        for (int i = n - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int t = perm[i];
+            perm[i] = perm[j];
+            perm[j] = t;
+        }
+        return perm;
+    }
+
+    /**
+     * Returns <tt>count</tt> cubes scrambled with <tt>length</tt> random
+     * moves each, named after the prefix and their position.
+     */
+    public RubiksCube[] scrambleCorpus(String prefix, int count, int length)
+    {
+        RubiksCube[] cubes = new RubiksCube[count];
+        for (int i = 0; i < count; i++)
+            cubes[i] = randomScramble(prefix + "-" + i, length);
+        return cubes;
+    }
+
+    /**
+     * Returns <tt>count</tt> uniformly random cubes, named after the
+     * prefix and their position.
+     */
+    public RubiksCube[] randomCorpus(String prefix, int count)
+    {
+        RubiksCube[] cubes = new RubiksCube[count];
+        for (int i = 0; i < count; i++)
+            cubes[i] = randomState(prefix + "-" + i);
+        return cubes;
+    }
+}
@@ -1,18 +1,22 @@
 import java.util.*;
 
 /**
- * This is the class for representing a single state of the rush hour
- * puzzle.  Methods are provided for constructing a state, for
- * accessing information about a state, for printing a state, and for
- * expanding a state (i.e., obtaining a list of all states immediately
- * reachable from it).
+ * This is the class for representing a single state of a rubiks cube,
+ * as the packed positions and orientations of its cubies.  Methods are
+ * provided for constructing a state, for accessing information about a
+ * state, for printing a state, and for expanding a state (i.e.,
+ * obtaining a list of all states immediately reachable from it).
  * <p>
- * Every car is constrained to only move horizontally or vertically.
- * Therefore, each car has one dimension along which it is fixed, and
- * another dimension along which it can be moved.  This variable
- * dimension is stored here as part of the state.  A link to the
- * puzzle with which this state is associated is also stored.
- * Note that the goal car is always assigned index 0.  
+ * Rather than the 54 stickers, a state stores the cube at the level
+ * of cubies: which corner and which edge cubie occupies each slot,
+ * and how it is twisted or flipped there.  The corners and the edges
+ * are each packed into a single <tt>long</tt> as described in
+ * <tt>CubieTables</tt>, so a state costs a few words of memory and
+ * expanding it allocates nothing but the children themselves.  A link
+ * to the cube with which this state is associated is also stored, as
+ * are the move that produced the state and the state of the
+ * <tt>MovePruning</tt> automaton after it, which together decide which
+ * moves are worth making next.  Neither takes part in equality.
  * <p>
  * To make it easier to use <tt>State</tt> objects with some of the
  * data structures provided as part of the Standard Java Platform, we
@@ -20,65 +24,118 @@ import java.util.*;
  * You probably will not need to access these methods directly, but
  * they are likely to be used implicitly if you take advantage of the
  * Java Platform.  These methods define two <tt>State</tt> objects to
- * be equal if they refer to the same <tt>Puzzle</tt> object, and if
- * they indicate that the cars have the identical variable positions
- * in both states.  The hashcode is designed to satisfy the general
- * contract of the <tt>Object.hashCode</tt> method that it overrides,
- * with regard to the redefinition of <tt>equals</tt>.
+ * be equal if every slot of the cube holds the same cubie with the
+ * same orientation in both states.  Unlike rush hour states, two cube
+ * states are compared without regard to the <tt>RubiksCube</tt> they
+ * came from, so that a position can be recognized across cubes.  The
+ * hashcode is a 64-bit Zobrist hash that is updated incrementally as
+ * moves are made, and is designed to satisfy the general contract of
+ * the <tt>Object.hashCode</tt> method that it overrides, with regard
+ * to the redefinition of <tt>equals</tt>.
  */
 
 public class State {
     
     private RubiksCube rb;
-    private int[][] faces;
+    private long corners;
+    private long edges;
+    private byte lastMove = -1;
+    private byte pruneState = MovePruning.START;
     
     /**
      * The main constructor for constructing a state.
      *   @param rb the cube that this state is associated with
+     *   @param corners the packed corner cubies of this state
+     *   @param edges the packed edge cubies of this state
+     */
+    public State(RubiksCube rb,
+                 long corners,
+                 long edges) 
+    {
+        this.rb = rb;
+        this.corners = corners;
+        this.edges = edges;
+        computeHashCode();
+    }
+
+    // constructs a child state whose Zobrist hash is already known
+    private State(RubiksCube rb,
+                  long corners,
+                  long edges,
+                  long zobrist,
+                  int lastMove,
+                  int pruneState)
+    {
+        this.rb = rb;
+        this.corners = corners;
+        this.edges = edges;
+        this.zobrist = zobrist;
+        this.hashcode = (int) (zobrist ^ (zobrist >>> 32));
+        this.lastMove = (byte) lastMove;
+        this.pruneState = (byte) pruneState;
+    }
+
+    /**
+     * Constructs a state from the stickers on each face of the cube.
+     *   @param rb the cube that this state is associated with
      *   @param faces the state of each face on the cube
      */
     public State(RubiksCube rb,
                  int[][] faces) 
     {
         this.rb = rb;
-        this.faces = faces;
-        //computeHashCode();
+        long[] packed = CubieTables.fromFaces(faces);
+        this.corners = packed[0];
+        this.edges = packed[1];
+        computeHashCode();
     }
     
-    /** Returns true if and only if this state is a goal state. */
+    /**
+     * Returns true if and only if this state is a goal state.  This is
+     * two comparisons against the packed solved cube, so it costs the
+     * same however the cube is scrambled and allocates nothing.
+     */
     public boolean isGoal() 
     {
-        boolean[] allColors = new boolean[RubiksCube.NUM_FACES];
-        // for each face...   
-        for (int i = 0; i < RubiksCube.NUM_FACES; i++)
-        {
-            int[] face = faces[i];
+        return corners == CubieTables.SOLVED_CORNERS
+            && edges == CubieTables.SOLVED_EDGES;
+    }
 
-            // get a color on face
-            int color = face[0];
+    /**
+     * Returns the move (an index into <tt>RubiksCube.MOVE_NAMES</tt>)
+     * that produced this state from its parent, or -1 if it was not
+     * produced by <tt>expand</tt>.
+     */
+    public int getLastMove()
+    {
+        return lastMove;
+    }
 
-            // is the entire face same color?
-            // return false is no
-            for (int j = 0; j < RubiksCube.FACE_SIZE; j++)
-            {
-                if (color != face[j])
-                {
-                    return false;
-                }
-            }
-            allColors[color] = true;
-        }
+    /** Returns the packed corner cubies of this state. */
+    public long getCorners()
+    {
+        return corners;
+    }
 
-        // make sure each face has a different color
+    /** Returns the packed edge cubies of this state. */
+    public long getEdges()
+    {
+        return edges;
+    }
+
+    /**
+     * Returns the stickers on each face of the cube in this state, in
+     * the face order of <tt>RubiksCube.FACE_INDEX</tt>.  The faces are
+     * recomputed from the cubies each time this method is called.
+     */
+    public int[][] getAllFaces()
+    {
+        int[] colors = new int[RubiksCube.NUM_FACES];
         for (int i = 0; i < RubiksCube.NUM_FACES; i++)
         {
-            if (!allColors[i])
-            {
-                return false;
-            }
+            colors[i] = rb == null ? i : rb.getAllFaces()[i][RubiksCube.FACE_SIZE / 2];
         }
-
-        return true;
+        return CubieTables.toFaces(corners, edges, colors);
     }
     
     // returns the face on side <side>
@@ -86,9 +143,9 @@ public class State {
     {
         for (int i = 0; i < RubiksCube.NUM_FACES; i++)
         {
-            if (side == RubiksCube.FACE_INDEX[i])
+            if (side.equals(RubiksCube.FACE_INDEX[i]))
             {
-                return faces[i];
+                return getAllFaces()[i];
             }
         }
         assert (false);
@@ -103,6 +160,7 @@ public class State {
     /** Prints to standard output a primitive text representation of the state. */
     public void print() 
     {
+        int[][] faces = getAllFaces();
         for (int i = 0; i < RubiksCube.NUM_FACES; i++)
         {
             System.out.println(RubiksCube.FACE_INDEX[i]);
@@ -119,95 +177,122 @@ public class State {
             }
         }
     }
-    
-    // return a new copy of <faces>
-    private int[][] newCopyOfFaces()
-    {
-        int[][] copy = new int[RubiksCube.NUM_FACES][RubiksCube.FACE_SIZE];
-        for (int i = 0; i < RubiksCube.NUM_FACES; i++)
-        {
-            for (int j = 0; j < RubiksCube.FACE_SIZE; j++)
-            {
-                copy[i][j] = faces[i][j];
-            }
-        }
-        return copy;
-    }
-
-    private void rotateFace(int[] face, boolean clockwise)
-    {
-        int[] face_orig = face.clone();
-        if (clockwise)
-        {
-            for (int i = 0; i < RubiksCube.CW_ROTATION.length; i++)
-            {
-                face[RubiksCube.CW_ROTATION[i]] = face_orig[i];
-            }
-        }
-        else
-        {
-            for (int i = 0; i < RubiksCube.CW_ROTATION.length; i++)
-            {
-                face[i] = face_orig[RubiksCube.CW_ROTATION[i]];
-            }   
-        }
-        return;
-    }
 
     /**
      * Computes all of the states immediately reachable from this
      * state and returns them as an array of states.  You probably
      * will not need to use this method directly, since ordinarily you
      * will be expanding <tt>Node</tt>s, not <tt>State</tt>s.
+     * <p>
+     * One child is generated for each move of the cube's
+     * <tt>MoveMetric</tt>, in the order of its <tt>getMoves()</tt>,
+     * except for the moves that its <tt>MovePruning</tt> automaton
+     * rules out after the moves that led here.  The children are
+     * computed with the straight-line move methods generated into
+     * <tt>MoveKernels</tt>.
      */
     public State[] expand()
     {
-        ArrayList<State> new_states = new ArrayList<State>();
+        MovePruning pruning = rb.getMoveMetric().getPruning();
+        int[] moves = pruning.getMoves();
+
+        int count = 0;
+        for (int i = 0; i < moves.length; i++)
+            if (pruning.next(pruneState, i) >= 0)
+                count++;
+        State[] new_states = new State[count];
 
-        for (int i = 0; i < RubiksCube.turns.length; i++)
+        count = 0;
+        for (int i = 0; i < moves.length; i++)
         {
-            int[][] turn = RubiksCube.turns[i];
-            // two directions to turn side
-            for (int j = 0; j < 2; j++)
-            {
-                int[][] newFaces = newCopyOfFaces();
-                // clockwise
-                if (j == 0)
-                {
-                    // rotate face @ turn[0]
-                    rotateFace(newFaces[i], true);
+            int next = pruning.next(pruneState, i);
+            if (next < 0)
+                continue;
+            int m = moves[i];
+            long newCorners = MoveKernels.corners(corners, m);
+            long newEdges = MoveKernels.edges(edges, m);
+            long newZobrist = CubieTables.zobristAfterMove(zobrist, m,
+                                                           corners, edges,
+                                                           newCorners, newEdges);
+            new_states[count++] = new State(rb, newCorners, newEdges, newZobrist, m, next);
+        }
+    
+        rb.incrementSearchCount(new_states.length);    
+        return new_states;
+    }
+    
+    /**
+     * Makes <tt>move</tt> on this state in place, updating its hash.
+     * This is for searches that walk a single scratch state through
+     * the tree, such as <tt>IDAStar</tt>; a state must not be changed
+     * while a hash set or map holds it.
+     */
+    void apply(int move)
+    {
+        long newCorners = MoveKernels.corners(corners, move);
+        long newEdges = MoveKernels.edges(edges, move);
+        zobrist = CubieTables.zobristAfterMove(zobrist, move, corners, edges, newCorners, newEdges);
+        hashcode = (int) (zobrist ^ (zobrist >>> 32));
+        corners = newCorners;
+        edges = newEdges;
+        lastMove = (byte) move;
+    }
 
-                    for (int to = 0; to < turn.length; to++)
-                    {
-                        int from = to == 0 ? turn.length - 1 : to - 1;
-                        int[] from_side = turn[from];
-                        int[] to_side = turn[to];
+    /**
+     * Takes back <tt>move</tt>, the last move made on this state by
+     * <tt>apply</tt>.  The move before it is not remembered, so
+     * <tt>getLastMove</tt> returns -1 afterwards.
+     */
+    void undo(int move)
+    {
+        apply(RubiksCube.inverseMove(move));
+        lastMove = -1;
+    }
 
-                        newFaces[to_side[0]][to_side[1]] = faces[from_side[0]][from_side[1]];
-                        newFaces[to_side[0]][to_side[2]] = faces[from_side[0]][from_side[2]];
-                        newFaces[to_side[0]][to_side[3]] = faces[from_side[0]][from_side[3]];
-                    }
-                }
-                // counterclockwise
-                else
-                {
-                    rotateFace(newFaces[i], false);
-                    for (int to = 0; to < turn.length; to++)
-                    {
-                        int from = to == turn.length - 1 ? 0 : to + 1;
-                        int[] from_side = turn[from];
-                        int[] to_side = turn[to];
+    private long zobrist;
+    private int hashcode;
+    
+    private void computeHashCode() {
+        zobrist = CubieTables.zobrist(corners, edges);
+        hashcode = (int) (zobrist ^ (zobrist >>> 32));
+    }
 
-                        newFaces[to_side[0]][to_side[1]] = faces[from_side[0]][from_side[1]];
-                        newFaces[to_side[0]][to_side[2]] = faces[from_side[0]][from_side[2]];
-                        newFaces[to_side[0]][to_side[3]] = faces[from_side[0]][from_side[3]];
-                    }
-                }
-                new_states.add(new State(rb, newFaces));
-            }
-        }
+    /** Returns the full 64-bit Zobrist hash of this state. */
+    public long getZobristHash() {
+        return zobrist;
+    }
     
-        rb.incrementSearchCount(new_states.size());    
-        return (State[]) new_states.toArray(new State[0]);
+    /**
+     * Returns a hash code value for this <tt>State</tt> object.
+     * Although you probably will not need to use it directly, this
+     * method is provided for the benefit of hashtables given in the
+     * Java Platform.  See documentation on <tt>Object.hashCode</tt>,
+     * which this method overrides, for the general contract that
+     * <tt>hashCode</tt> methods must satisfy.
+     */
+    public int hashCode() {
+        return hashcode;
+    }
+    
+    /**
+     * Returns <tt>true</tt> if and only if this state is considered
+     * equal to the given object.  In particular, equality is defined
+     * to hold if the given object is also a <tt>State</tt> object, and
+     * if the same cubies are in the same slots with the same
+     * orientations in both states.  This method overrides
+     * <tt>Object.equals</tt>.
+     */
+    public boolean equals(Object o) {
+        State s;
+        try {
+            s = (State) o;
+        }
+        catch (ClassCastException e) {
+            return false;
+        }
+        if (s == null || zobrist != s.zobrist)
+            return false;
+        
+        return corners == s.corners && edges == s.edges;
     }
 }
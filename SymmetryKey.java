@@ -0,0 +1,81 @@
+/**
+ * This is the class for the key of a cube state under symmetry, as
+ * computed by <tt>CubeSymmetry.canonicalize</tt>.  The key holds the
+ * least symmetric variant of the state (its representative) and the
+ * symmetry that carries the original state to it.  Two keys are equal
+ * if and only if their representatives are, so keys can stand in for
+ * states in hash sets and maps wherever symmetric states may be
+ * treated as one, as in the expanded set of <tt>AStar</tt>, caches of
+ * solutions and pattern databases.
+ */
+public final class SymmetryKey
+{
+    private final long corners;
+    private final long edges;
+    private final int symmetry;
+    private final int hashcode;
+
+    SymmetryKey(long corners, long edges, int symmetry)
+    {
+        this.corners = corners;
+        this.edges = edges;
+        this.symmetry = symmetry;
+        long zobrist = CubieTables.zobrist(corners, edges);
+        this.hashcode = (int) (zobrist ^ (zobrist >>> 32));
+    }
+
+    /** Returns the packed corners of the representative. */
+    public long getCorners()
+    {
+        return corners;
+    }
+
+    /** Returns the packed edges of the representative. */
+    public long getEdges()
+    {
+        return edges;
+    }
+
+    /**
+     * Returns the symmetry that carries the original state to the
+     * representative.  <tt>CubeSymmetry.INVERSE</tt> of it carries the
+     * representative (or a solution found for it) back.
+     */
+    public int getSymmetry()
+    {
+        return symmetry;
+    }
+
+    /** Returns the representative as a state of the given cube. */
+    public State toState(RubiksCube rb)
+    {
+        return new State(rb, corners, edges);
+    }
+
+    /** Returns the original state that this key was computed from. */
+    public State toOriginal(RubiksCube rb)
+    {
+        int back = CubeSymmetry.INVERSE[symmetry];
+        return new State(rb,
+                         CubeSymmetry.conjugateCorners(corners, back),
+                         CubeSymmetry.conjugateEdges(edges, back));
+    }
+
+    public int hashCode()
+    {
+        return hashcode;
+    }
+
+    /**
+     * Returns <tt>true</tt> if and only if the given object is a
+     * <tt>SymmetryKey</tt> with the same representative, regardless of
+     * the symmetry that led to it.
+     */
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof SymmetryKey))
+            return false;
+        SymmetryKey k = (SymmetryKey) o;
+        return corners == k.corners && edges == k.edges;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * This numbers the arrangements of a <tt>CubiePattern</tt> by their
+ * classes under the symmetries of the cube, so that a
+ * <tt>PatternDatabase</tt> indexed by it stores one distance for all
+ * symmetric arrangements.  Symmetric arrangements are the same number
+ * of moves from home in every <tt>MoveMetric</tt>, and the table shrinks
+ * by up to the number of symmetries used.
+ * <p>
+ * The symmetries used are those of <tt>CubeSymmetry</tt> that carry the
+ * pattern's tracked cubies onto each other: all 48 for the eight
+ * corners, 16 for the eight edges of the u and d faces, 8 for the four
+ * edges of the u face.  The placement of the tracked cubies (the rank
+ * of the slots they occupy, as in <tt>CubiePattern</tt>) is reduced
+ * first: the placements are split into classes, each represented by
+ * its least placement, and for every placement a table gives its class
+ * and a symmetry that carries it to the representative.  The index of
+ * an arrangement is then
+ * <pre>
+ *     class * orientations + orientation rank
+ * </pre>
+ * taken after carrying the arrangement to its representative
+ * placement.  Where some symmetries leave the representative in place
+ * (its stabilizer), the least orientation rank over them is taken, so
+ * every symmetric arrangement gets the same index.  A few indices are
+ * then never used, and stay unvisited in the database.
+ * <p>
+ * Ranking takes one rank of the arrangement, one symmetry conjugation,
+ * and a second rank, plus one conjugation and rank for each further
+ * symmetry in the stabilizer of its representative, which is rare.
+ * Building the class tables conjugates every placement by every
+ * symmetry used, which for the larger edge patterns takes a while.
+ * <p>
+ * The coordinates of an arrangement are its packed word, since a
+ * symmetry has to be applied to the cubies themselves.
+ */
+public class SymmetryReducedPattern implements PatternIndex {
+
+    private CubiePattern pattern;
+    private int[] symmetries;
+    private long orientationCount;
+    // the class of each placement, and a symmetry carrying it to the
+    // class representative
+    private int[] classOf;
+    private byte[] symmetryOf;
+    private int[] representative;
+    // the symmetries other than the identity that leave the
+    // representative in place, or null if there are none
+    private int[][] stabilizer;
+    private int classes;
+
+    /** Builds the class tables for the given pattern. */
+    public SymmetryReducedPattern(CubiePattern pattern)
+    {
+        this.pattern = pattern;
+        symmetries = symmetriesOf(pattern);
+        orientationCount = pattern.getOrientationCount();
+
+        long placements = pattern.size() / orientationCount;
+        classOf = new int[(int) placements];
+        symmetryOf = new byte[(int) placements];
+        java.util.Arrays.fill(classOf, -1);
+        int[] reps = new int[(int) placements];
+        int[][] stabs = new int[(int) placements][];
+
+        int[] found = new int[symmetries.length];
+        for (int p = 0; p < placements; p++)
+        {
+            if (classOf[p] >= 0)
+                continue;
+            // p is the least placement of a class not seen yet
+            long word = pattern.unrank(p * orientationCount);
+            int stabilizing = 0;
+            for (int s : symmetries)
+            {
+                int q = placement(conjugate(word, s));
+                if (q == p && s != 0)
+                    found[stabilizing++] = s;
+                if (classOf[q] < 0)
+                {
+                    classOf[q] = classes;
+                    symmetryOf[q] = (byte) CubeSymmetry.INVERSE[s];
+                }
+            }
+            reps[classes] = p;
+            if (stabilizing > 0)
+                stabs[classes] = java.util.Arrays.copyOf(found, stabilizing);
+            classes++;
+        }
+        representative = java.util.Arrays.copyOf(reps, classes);
+        stabilizer = java.util.Arrays.copyOf(stabs, classes);
+    }
+
+    // the symmetries that carry the tracked cubies onto each other; the
+    // solved cube is fixed by every symmetry, so symmetry s takes the
+    // cubie of each slot to the slot given by CubeSymmetry's slot map
+    private static int[] symmetriesOf(CubiePattern pattern)
+    {
+        int[][] slotMap = pattern.isCorners() ? CubeSymmetry.CORNER_SLOT : CubeSymmetry.EDGE_SLOT;
+        int[] cubies = pattern.getCubies();
+        boolean[] tracked = new boolean[slotMap[0].length];
+        for (int c : cubies)
+            tracked[c] = true;
+
+        int[] result = new int[CubeSymmetry.NUM_SYMMETRIES];
+        int count = 0;
+        for (int s = 0; s < CubeSymmetry.NUM_SYMMETRIES; s++)
+        {
+            boolean closed = true;
+            for (int c : cubies)
+                closed &= tracked[slotMap[s][c]];
+            if (closed)
+                result[count++] = s;
+        }
+        return java.util.Arrays.copyOf(result, count);
+    }
+
+    private long conjugate(long word, int s)
+    {
+        return pattern.isCorners() ? CubeSymmetry.conjugateCorners(word, s)
+                                   : CubeSymmetry.conjugateEdges(word, s);
+    }
+
+    private int placement(long word)
+    {
+        return (int) (pattern.rank(word) / orientationCount);
+    }
+
+    public CubiePattern getPattern()
+    {
+        return pattern;
+    }
+
+    /** Returns the symmetries this numbering reduces by. */
+    public int[] getSymmetries()
+    {
+        return symmetries.clone();
+    }
+
+    /** Returns the number of classes of placements of the tracked cubies. */
+    public int getClassCount()
+    {
+        return classes;
+    }
+
+    public long size()
+    {
+        return classes * orientationCount;
+    }
+
+    public long rank(long word)
+    {
+        int p = placement(word);
+        int c = classOf[p];
+        int s = symmetryOf[p];
+        if (s != 0)
+            word = conjugate(word, s);
+        long orientation = pattern.rank(word) % orientationCount;
+
+        int[] stab = stabilizer[c];
+        if (stab != null)
+        {
+            for (int t : stab)
+                orientation = Math.min(orientation, pattern.rank(conjugate(word, t)) % orientationCount);
+        }
+        return c * orientationCount + orientation;
+    }
+
+    /**
+     * Returns a packed word with the representative placement of class
+     * <tt>index / orientations</tt> and the orientations of
+     * <tt>index % orientations</tt>.
+     */
+    public long unrank(long index)
+    {
+        long c = index / orientationCount;
+        return pattern.unrank(representative[(int) c] * orientationCount + index % orientationCount);
+    }
+
+    public long coordinates(long word)
+    {
+        return word;
+    }
+
+    public long moveCoordinates(long coordinates, int move)
+    {
+        return pattern.move(coordinates, move);
+    }
+
+    public long rankCoordinates(long coordinates)
+    {
+        return rank(coordinates);
+    }
+
+    public long unrankCoordinates(long index)
+    {
+        return unrank(index);
+    }
+
+    public int getScheme()
+    {
+        return PatternDatabase.INDEX_SYMMETRY_CLASS;
+    }
+}
@@ -0,0 +1,441 @@
+/**
+ * This is the class that solves a rubiks cube with Thistlethwaite's
+ * algorithm, which takes the cube through a chain of nested subgroups
+ * <pre>
+ *     G0 = &lt;U, D, L, R, F, B&gt;
+ *     G1 = &lt;U, D, L, R, F2, B2&gt;      every edge flip is 0
+ *     G2 = &lt;U, D, L2, R2, F2, B2&gt;    every corner twist is 0 and the
+ *                                    u-d slice edges are in their slice
+ *     G3 = &lt;U2, D2, L2, R2, F2, B2&gt;  every corner is in its coset of
+ *                                    the half turn group, and the l-r
+ *                                    slice edges are in their slice
+ *     G4 = the solved cube
+ * </pre>
+ * one phase at a time, each phase using only the moves of the group it
+ * starts in.  Like <tt>AStar</tt>, the work is done by the constructor,
+ * and the solution is returned in the <tt>path</tt> and <tt>moves</tt>
+ * fields, in the half turn metric.
+ * <p>
+ * Each phase has a coordinate that says which coset of the next group
+ * the cube is in, and a table of the exact distance from every coset
+ * to the next group, built by breadth-first search:
+ * <pre>
+ *     phase 1: edge flip                             2048 entries
+ *     phase 2: corner twist x u-d slice              1082565
+ *     phase 3: corner coset x l-r slice edge slots   29400
+ *     phase 4: corner permutation x edge permutation 1327104 (663552 used)
+ * </pre>
+ * Since the tables are exact, each phase is a walk down its table, one
+ * move that lowers the distance at a time, with no search at all.  The
+ * phases take at most 7, 10, 13 and 15 moves, so a solution never
+ * has more than 45 moves (about 31 on random states), and is found in
+ * well under a millisecond.  The tables take about 2.5MB, and are
+ * built in well under a second when the class is first used, from the
+ * coordinates of <tt>MoveTables</tt> and <tt>MoveKernels</tt>.  For
+ * shorter solutions at the cost of more memory and time, see
+ * <tt>TwoPhaseSolver</tt>.
+ */
+public class ThistlethwaiteSolver {
+
+    // the moves of each phase, indices into RubiksCube.MOVE_NAMES
+    private final static int[][] PHASE_MOVES = new int[][]
+    {
+        MoveMetric.HALF_TURN.getPruning().getMoves(),
+        {6, 7, 15, 8, 9, 16, 2, 3, 13, 4, 5, 14, 12, 17},   // U U' U2 D D' D2 L L' L2 R R' R2 F2 B2
+        {6, 7, 15, 8, 9, 16, 13, 14, 12, 17},               // U U' U2 D D' D2 L2 R2 F2 B2
+        {15, 16, 13, 14, 12, 17}                            // U2 D2 L2 R2 F2 B2
+    };
+
+    private final static int NUM_PHASES = 4;
+
+    // the slots of the l-r, f-b and u-d slices; the edges of each slice
+    // are those whose home is one of its slots
+    private final static int[][] SLICE_SLOTS = new int[][]
+    {
+        {1, 3, 5, 7}, {0, 2, 4, 6}, {8, 9, 10, 11}
+    };
+    private final static int NUM_SLICE_PERMUTATIONS = 24;
+    private final static int NUM_EDGE_PERMUTATIONS = 24 * 24 * 24;
+
+    // the corner permutations of G3 and the cosets of them
+    private final static int NUM_HALF_TURN_CORNERS = 96;
+    private final static int NUM_CORNER_COSETS = 420;
+    // the ways of placing the l-r slice edges in the 8 slots of the u
+    // and d faces
+    private final static int NUM_COMBINATIONS = 70;
+
+    // the rank of each corner permutation of G3 among them, or -1, and
+    // the corner permutation of each rank
+    private final static short[] HALF_TURN_INDEX = new short[MoveTables.NUM_CORNER_PERMUTATIONS];
+    private final static int[] HALF_TURN_CORNERS = new int[NUM_HALF_TURN_CORNERS];
+    // the coset of each corner permutation, and a member of each coset
+    private final static short[] COSET = new short[MoveTables.NUM_CORNER_PERMUTATIONS];
+    private final static int[] COSET_MEMBER = new int[NUM_CORNER_COSETS];
+    // the combination of each set of slots of the 8, as a bit mask, and
+    // back
+    private final static byte[] COMBINATION = new byte[256];
+    private final static int[] COMBINATION_MASK = new int[NUM_COMBINATIONS];
+
+    // move tables, indexed by the position of the move in its phase's
+    // moves
+    private final static short[][] COSET_MOVE = new short[PHASE_MOVES[2].length][NUM_CORNER_COSETS];
+    private final static byte[][] COMBINATION_MOVE = new byte[PHASE_MOVES[2].length][NUM_COMBINATIONS];
+    private final static byte[][] HALF_TURN_CORNER_MOVE =
+        new byte[PHASE_MOVES[3].length][NUM_HALF_TURN_CORNERS];
+    private final static byte[][][] SLICE_PERMUTATION_MOVE =
+        new byte[SLICE_SLOTS.length][PHASE_MOVES[3].length][NUM_SLICE_PERMUTATIONS];
+
+    // the phases, in order
+    private final static Phase[] PHASES = new Phase[NUM_PHASES];
+
+    static
+    {
+        halfTurnCorners();
+        cosets();
+        int count = 0;
+        for (int mask = 0; mask < 256; mask++)
+        {
+            if (Integer.bitCount(mask) == 4)
+            {
+                COMBINATION[mask] = (byte) count;
+                COMBINATION_MASK[count++] = mask;
+            }
+        }
+
+        for (int i = 0; i < PHASE_MOVES[2].length; i++)
+        {
+            int m = PHASE_MOVES[2][i];
+            for (int c = 0; c < NUM_CORNER_COSETS; c++)
+                COSET_MOVE[i][c] = COSET[MoveTables.CORNER_PERMUTATION_MOVE[m][COSET_MEMBER[c]]];
+            for (int c = 0; c < NUM_COMBINATIONS; c++)
+                COMBINATION_MOVE[i][c] = (byte) combination(
+                    MoveKernels.edges(edgesWithCombination(c), m));
+        }
+        for (int i = 0; i < PHASE_MOVES[3].length; i++)
+        {
+            int m = PHASE_MOVES[3][i];
+            for (int h = 0; h < NUM_HALF_TURN_CORNERS; h++)
+                HALF_TURN_CORNER_MOVE[i][h] = (byte)
+                    HALF_TURN_INDEX[MoveTables.CORNER_PERMUTATION_MOVE[m][HALF_TURN_CORNERS[h]]];
+            for (int k = 0; k < SLICE_SLOTS.length; k++)
+                for (int p = 0; p < NUM_SLICE_PERMUTATIONS; p++)
+                    SLICE_PERMUTATION_MOVE[k][i][p] = (byte) slicePermutation(
+                        MoveKernels.edges(edgesWithSlicePermutation(k, p), m), k);
+        }
+
+        PHASES[0] = new Phase(PHASE_MOVES[0], MoveTables.NUM_FLIPS, 0)
+        {
+            int index(long corners, long edges)
+            {
+                return MoveTables.flip(edges);
+            }
+
+            int move(int index, int i)
+            {
+                return MoveTables.FLIP_MOVE[PHASE_MOVES[0][i]][index];
+            }
+        };
+        PHASES[1] = new Phase(PHASE_MOVES[1], MoveTables.NUM_TWISTS * MoveTables.NUM_SLICES,
+                              MoveTables.SOLVED_SLICE)
+        {
+            int index(long corners, long edges)
+            {
+                return MoveTables.twist(corners) * MoveTables.NUM_SLICES + MoveTables.slice(edges);
+            }
+
+            int move(int index, int i)
+            {
+                int m = PHASE_MOVES[1][i];
+                return MoveTables.TWIST_MOVE[m][index / MoveTables.NUM_SLICES] * MoveTables.NUM_SLICES
+                    + MoveTables.SLICE_MOVE[m][index % MoveTables.NUM_SLICES];
+            }
+        };
+        PHASES[2] = new Phase(PHASE_MOVES[2], NUM_CORNER_COSETS * NUM_COMBINATIONS,
+                              combination(CubieTables.SOLVED_EDGES))
+        {
+            int index(long corners, long edges)
+            {
+                return COSET[MoveTables.cornerPermutation(corners)] * NUM_COMBINATIONS
+                    + combination(edges);
+            }
+
+            int move(int index, int i)
+            {
+                return COSET_MOVE[i][index / NUM_COMBINATIONS] * NUM_COMBINATIONS
+                    + COMBINATION_MOVE[i][index % NUM_COMBINATIONS];
+            }
+        };
+        PHASES[3] = new Phase(PHASE_MOVES[3], NUM_HALF_TURN_CORNERS * NUM_EDGE_PERMUTATIONS, 0)
+        {
+            int index(long corners, long edges)
+            {
+                int index = HALF_TURN_INDEX[MoveTables.cornerPermutation(corners)];
+                for (int k = 0; k < SLICE_SLOTS.length; k++)
+                    index = index * NUM_SLICE_PERMUTATIONS + slicePermutation(edges, k);
+                return index;
+            }
+
+            int move(int index, int i)
+            {
+                int result = 0;
+                int scale = 1;
+                for (int k = SLICE_SLOTS.length - 1; k >= 0; k--)
+                {
+                    result += SLICE_PERMUTATION_MOVE[k][i][index % NUM_SLICE_PERMUTATIONS] * scale;
+                    index /= NUM_SLICE_PERMUTATIONS;
+                    scale *= NUM_SLICE_PERMUTATIONS;
+                }
+                return result + HALF_TURN_CORNER_MOVE[i][index] * scale;
+            }
+        };
+    }
+
+    /**
+     * One phase of the algorithm: a coordinate on the cosets of the
+     * group it ends in, how its moves change that coordinate, and the
+     * distance of each coset from the goal.
+     */
+    private static abstract class Phase
+    {
+        int[] moves;
+        byte[] distance;
+
+        Phase(int[] moves, int size, int goal)
+        {
+            this.moves = moves;
+            distance = new byte[size];
+            java.util.Arrays.fill(distance, (byte) -1);
+            distance[goal] = 0;
+            boolean grew = true;
+            for (int depth = 0; grew; depth++)
+            {
+                grew = false;
+                for (int j = 0; j < size; j++)
+                {
+                    if (distance[j] != depth)
+                        continue;
+                    for (int i = 0; i < moves.length; i++)
+                    {
+                        int k = move(j, i);
+                        if (distance[k] < 0)
+                        {
+                            distance[k] = (byte) (depth + 1);
+                            grew = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Returns the coordinate of the given packed cubies. */
+        abstract int index(long corners, long edges);
+
+        /** Returns the coordinate after move <tt>moves[i]</tt>. */
+        abstract int move(int index, int i);
+    }
+
+    /** The solution path is stored here */
+    public State[] path;
+
+    /**
+     * The moves of the solution are stored here, one fewer than the
+     * states of <tt>path</tt>, in the half turn metric.
+     */
+    public int[] moves;
+
+    private int[] phaseLengths = new int[NUM_PHASES];
+
+    /** This is the constructor that computes a solution for the given cube. */
+    public ThistlethwaiteSolver(RubiksCube puzzle)
+    {
+        State initial = puzzle.getInitNode().getState();
+        long corners = initial.getCorners();
+        long edges = initial.getEdges();
+        int[] solution = new int[64];
+        int length = 0;
+
+        for (int p = 0; p < NUM_PHASES; p++)
+        {
+            Phase phase = PHASES[p];
+            int index = phase.index(corners, edges);
+            int start = length;
+            for (int d = phase.distance[index]; d > 0; d--)
+            {
+                int i = 0;
+                while (phase.distance[phase.move(index, i)] != d - 1)
+                    i++;
+                index = phase.move(index, i);
+                solution[length++] = phase.moves[i];
+            }
+            phaseLengths[p] = length - start;
+            for (int k = start; k < length; k++)
+            {
+                corners = MoveKernels.corners(corners, solution[k]);
+                edges = MoveKernels.edges(edges, solution[k]);
+            }
+        }
+
+        moves = java.util.Arrays.copyOf(solution, length);
+        path = new State[length + 1];
+        path[0] = initial;
+        corners = initial.getCorners();
+        edges = initial.getEdges();
+        for (int k = 0; k < length; k++)
+        {
+            corners = MoveKernels.corners(corners, moves[k]);
+            edges = MoveKernels.edges(edges, moves[k]);
+            path[k + 1] = new State(puzzle, corners, edges);
+        }
+    }
+
+    /** Returns the number of moves of the solution spent in each phase. */
+    public int[] getPhaseLengths()
+    {
+        return phaseLengths.clone();
+    }
+
+    // finds the corner permutations of G3 by breadth-first search from
+    // the solved corners
+    private static void halfTurnCorners()
+    {
+        java.util.Arrays.fill(HALF_TURN_INDEX, (short) -1);
+        HALF_TURN_INDEX[0] = 0;
+        int count = 1;
+        for (int h = 0; h < count; h++)
+        {
+            for (int m : PHASE_MOVES[3])
+            {
+                int p = MoveTables.CORNER_PERMUTATION_MOVE[m][HALF_TURN_CORNERS[h]];
+                if (HALF_TURN_INDEX[p] < 0)
+                {
+                    HALF_TURN_INDEX[p] = (short) count;
+                    HALF_TURN_CORNERS[count++] = p;
+                }
+            }
+        }
+    }
+
+    // splits the corner permutations into the cosets of those of G3: a
+    // permutation p is in the same coset as the permutation reached by
+    // making the moves of any member of G3 followed by those of p,
+    // which has corner hp[i] in slot i
+    private static void cosets()
+    {
+        CubiePattern corners = CubiePattern.allCorners();
+        int[][] halfTurn = new int[NUM_HALF_TURN_CORNERS][];
+        for (int h = 0; h < NUM_HALF_TURN_CORNERS; h++)
+            halfTurn[h] = cornerSlots(corners.unrank((long) HALF_TURN_CORNERS[h] * MoveTables.NUM_TWISTS));
+
+        java.util.Arrays.fill(COSET, (short) -1);
+        int count = 0;
+        for (int p = 0; p < MoveTables.NUM_CORNER_PERMUTATIONS; p++)
+        {
+            if (COSET[p] >= 0)
+                continue;
+            int[] perm = cornerSlots(corners.unrank((long) p * MoveTables.NUM_TWISTS));
+            for (int h = 0; h < NUM_HALF_TURN_CORNERS; h++)
+            {
+                long word = 0;
+                for (int i = 0; i < CubieTables.NUM_CORNERS; i++)
+                    word |= (long) halfTurn[h][perm[i]] << (CubieTables.FIELD_BITS * i);
+                COSET[MoveTables.cornerPermutation(word)] = (short) count;
+            }
+            COSET_MEMBER[count++] = p;
+        }
+    }
+
+    // the corner in each slot
+    private static int[] cornerSlots(long corners)
+    {
+        int[] slots = new int[CubieTables.NUM_CORNERS];
+        for (int i = 0; i < slots.length; i++)
+            slots[i] = CubieTables.cubie(corners, i, CubieTables.CUBIE_MASK_CORNER);
+        return slots;
+    }
+
+    // the combination of the slots of the u and d faces that hold the
+    // l-r slice edges
+    private static int combination(long edges)
+    {
+        int mask = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            int cubie = CubieTables.cubie(edges, i, CubieTables.CUBIE_MASK_EDGE);
+            if (cubie < 8 && (cubie & 1) != 0)
+                mask |= 1 << i;
+        }
+        return COMBINATION[mask];
+    }
+
+    // unflipped edges with the l-r slice edges in the slots of the given
+    // combination, the f-b slice edges in the rest, and the u-d slice
+    // edges home
+    private static long edgesWithCombination(int combination)
+    {
+        int mask = COMBINATION_MASK[combination];
+        long edges = CubieTables.SOLVED_EDGES;
+        int lr = 0;
+        int fb = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            int cubie = (mask & (1 << i)) != 0 ? SLICE_SLOTS[0][lr++] : SLICE_SLOTS[1][fb++];
+            edges &= ~((long) CubieTables.CUBIE_MASK_EDGE << (CubieTables.FIELD_BITS * i));
+            edges |= (long) cubie << (CubieTables.FIELD_BITS * i);
+        }
+        return edges;
+    }
+
+    // the rank of the permutation of the edges of slice k, which are in
+    // its slots, as MoveTables.cornerPermutation ranks the corners
+    private static int slicePermutation(long edges, int k)
+    {
+        int[] slots = SLICE_SLOTS[k];
+        int[] slotOf = new int[slots.length];
+        for (int i = 0; i < slots.length; i++)
+        {
+            int cubie = CubieTables.cubie(edges, slots[i], CubieTables.CUBIE_MASK_EDGE);
+            for (int c = 0; c < slots.length; c++)
+                if (slots[c] == cubie)
+                    slotOf[c] = i;
+        }
+
+        int perm = 0;
+        int used = 0;
+        for (int c = 0; c < slots.length; c++)
+        {
+            int s = slotOf[c];
+            perm = perm * (slots.length - c) + s - Integer.bitCount(used & ((1 << s) - 1));
+            used |= 1 << s;
+        }
+        return perm;
+    }
+
+    // the solved edges but with the edges of slice k permuted as ranked
+    // by perm
+    private static long edgesWithSlicePermutation(int k, int perm)
+    {
+        int[] slots = SLICE_SLOTS[k];
+        int n = slots.length;
+        int[] digits = new int[n];
+        for (int c = n - 1; c >= 0; c--)
+        {
+            digits[c] = perm % (n - c);
+            perm /= n - c;
+        }
+        long edges = CubieTables.SOLVED_EDGES;
+        int used = 0;
+        for (int c = 0; c < n; c++)
+        {
+            int s = 0;
+            for (int d = digits[c]; d > 0 || (used & (1 << s)) != 0; s++)
+            {
+                if ((used & (1 << s)) == 0)
+                    d--;
+            }
+            used |= 1 << s;
+            edges &= ~((long) CubieTables.CUBIE_MASK_EDGE << (CubieTables.FIELD_BITS * slots[s]));
+            edges |= (long) slots[c] << (CubieTables.FIELD_BITS * slots[s]);
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,392 @@
+/**
+ * This is the class that solves a rubiks cube with Kociemba's two-phase
+ * algorithm, which finds a solution of about 20 moves in milliseconds
+ * where an optimal one can take minutes.  Like <tt>AStar</tt>, the
+ * search is carried out by the constructor, and the solution is
+ * returned in the <tt>path</tt> and <tt>moves</tt> fields.
+ * <p>
+ * Phase one takes the cube into the subgroup generated by U, D, R2, L2,
+ * F2 and B2, in which every corner twist and edge flip is 0 and the
+ * edges of the slice between the u and d faces are in that slice.  It
+ * searches on the twist, flip and UD slice coordinates of
+ * <tt>MoveTables</tt> with all 18 moves of the half turn metric.  Phase
+ * two solves the cube within the subgroup, using only its 10 moves, on
+ * the corner permutation, the permutation of the 8 edges of the u and d
+ * faces, and the permutation of the 4 slice edges.  Each phase is an
+ * IDA* search whose heuristic is the larger of two pruning tables, each
+ * holding the exact distance to the phase's goal over a pair of its
+ * coordinates:
+ * <pre>
+ *     phase one: twist x slice, flip x slice (about 1M entries each)
+ *     phase two: corners x slice edges, u and d edges x slice edges
+ * </pre>
+ * <p>
+ * The phase one solutions are tried shortest first, each followed by
+ * the shortest phase two solution that still beats the best total so
+ * far.  The first total found, typically 22 to 25 moves after about
+ * 10ms, is rarely optimal; the search keeps improving on it until it is
+ * no longer than the requested length or the time limit runs out.
+ * Asking for 21 moves takes under 100ms on most states.  The search
+ * ends sooner when the phase one solutions left are as long as the best
+ * total.  A phase one solution whose last move is itself a move of
+ * phase two is skipped, as a shorter one reaches the same coset.
+ * <p>
+ * The moves of the solution are outer turns of the half turn metric,
+ * whatever the metric of the cube given.  The tables are built once,
+ * when the class is first used, from <tt>MoveKernels</tt>; this takes
+ * a second or two.
+ */
+public class TwoPhaseSolver {
+
+    /** No solution is looked for beyond this length. */
+    public final static int MAX_LENGTH = 30;
+
+    // the moves of each phase, indices into RubiksCube.MOVE_NAMES
+    private final static int[] PHASE1_MOVES = MoveMetric.HALF_TURN.getPruning().getMoves();
+    private final static int[] PHASE2_MOVES = new int[]
+    {
+        6, 7, 15, 8, 9, 16, 14, 13, 12, 17   // U U' U2 D D' D2 R2 L2 F2 B2
+    };
+
+    private final static int NUM_UD_EDGES = 8;
+    private final static int NUM_SLICE_EDGES = 4;
+    private final static int NUM_UD_EDGE_PERMUTATIONS = 40320;
+    private final static int NUM_SLICE_PERMUTATIONS = 24;
+
+    private final static MovePruning PHASE2_PRUNING = new MovePruning(PHASE2_MOVES);
+    private final static boolean[] IS_PHASE2_MOVE = new boolean[RubiksCube.NUM_MOVES];
+
+    // phase two move tables, indexed by the position of the move in
+    // PHASE2_MOVES; the corner rows are those of MoveTables
+    private final static char[][] CORNER_MOVE2 = new char[PHASE2_MOVES.length][];
+    private final static char[][] UD_EDGE_MOVE2 =
+        new char[PHASE2_MOVES.length][NUM_UD_EDGE_PERMUTATIONS];
+    private final static char[][] SLICE_MOVE2 =
+        new char[PHASE2_MOVES.length][NUM_SLICE_PERMUTATIONS];
+
+    // the pruning tables
+    private final static byte[] TWIST_SLICE;
+    private final static byte[] FLIP_SLICE;
+    private final static byte[] CORNER_SLICE;
+    private final static byte[] UD_EDGE_SLICE;
+
+    static
+    {
+        for (int i = 0; i < PHASE2_MOVES.length; i++)
+        {
+            int m = PHASE2_MOVES[i];
+            IS_PHASE2_MOVE[m] = true;
+            CORNER_MOVE2[i] = MoveTables.CORNER_PERMUTATION_MOVE[m];
+            for (int p = 0; p < NUM_UD_EDGE_PERMUTATIONS; p++)
+                UD_EDGE_MOVE2[i][p] = (char) udEdgePermutation(
+                    MoveKernels.edges(edgesWithPermutations(p, 0), m));
+            for (int p = 0; p < NUM_SLICE_PERMUTATIONS; p++)
+                SLICE_MOVE2[i][p] = (char) slicePermutation(
+                    MoveKernels.edges(edgesWithPermutations(0, p), m));
+        }
+
+        char[][] twist = new char[PHASE1_MOVES.length][];
+        char[][] flip = new char[PHASE1_MOVES.length][];
+        char[][] slice = new char[PHASE1_MOVES.length][];
+        for (int i = 0; i < PHASE1_MOVES.length; i++)
+        {
+            twist[i] = MoveTables.TWIST_MOVE[PHASE1_MOVES[i]];
+            flip[i] = MoveTables.FLIP_MOVE[PHASE1_MOVES[i]];
+            slice[i] = MoveTables.SLICE_MOVE[PHASE1_MOVES[i]];
+        }
+        TWIST_SLICE = pruningTable(twist, MoveTables.NUM_TWISTS, slice, MoveTables.NUM_SLICES,
+                                   MoveTables.SOLVED_SLICE);
+        FLIP_SLICE = pruningTable(flip, MoveTables.NUM_FLIPS, slice, MoveTables.NUM_SLICES,
+                                  MoveTables.SOLVED_SLICE);
+        CORNER_SLICE = pruningTable(CORNER_MOVE2, MoveTables.NUM_CORNER_PERMUTATIONS,
+                                    SLICE_MOVE2, NUM_SLICE_PERMUTATIONS, 0);
+        UD_EDGE_SLICE = pruningTable(UD_EDGE_MOVE2, NUM_UD_EDGE_PERMUTATIONS,
+                                     SLICE_MOVE2, NUM_SLICE_PERMUTATIONS, 0);
+    }
+
+    /** The solution path is stored here */
+    public State[] path;
+
+    /**
+     * The moves of the solution are stored here, one fewer than the
+     * states of <tt>path</tt>, in the half turn metric.
+     */
+    public int[] moves;
+
+    private RubiksCube puzzle;
+    private MovePruning pruning = MoveMetric.HALF_TURN.getPruning();
+    private long corners;
+    private long edges;
+    private int[] stack = new int[MAX_LENGTH];
+    private int bestLength = MAX_LENGTH + 1;
+    private int maxLength;
+    private long deadline;
+    private int phase1Length;
+
+    /**
+     * This is the constructor that computes a solution of at most
+     * <tt>maxLength</tt> moves, or the best found once
+     * <tt>timeLimit</tt> milliseconds have passed.  With a time limit of
+     * 0 the first solution found is returned.
+     */
+    public TwoPhaseSolver(RubiksCube puzzle, int maxLength, long timeLimit)
+    {
+        if (maxLength < 0 || timeLimit < 0)
+            throw new IllegalArgumentException("Negative length or time limit");
+        this.puzzle = puzzle;
+        this.maxLength = maxLength;
+        deadline = System.nanoTime() + timeLimit * 1000000L;
+
+        State initial = puzzle.getInitNode().getState();
+        corners = initial.getCorners();
+        edges = initial.getEdges();
+        int twist = MoveTables.twist(corners);
+        int flip = MoveTables.flip(edges);
+        int slice = MoveTables.slice(edges);
+
+        for (int depth = phase1Distance(twist, flip, slice); depth < bestLength; depth++)
+        {
+            if (phase1(twist, flip, slice, 0, depth, MovePruning.START))
+                break;
+        }
+        solution(initial);
+    }
+
+    /**
+     * This is the constructor that returns the first solution found,
+     * without trying to improve on it.
+     */
+    public TwoPhaseSolver(RubiksCube puzzle)
+    {
+        this(puzzle, MAX_LENGTH, 0);
+    }
+
+    /** Returns the number of moves of the solution spent in phase one. */
+    public int getPhase1Length()
+    {
+        return phase1Length;
+    }
+
+    private static int phase1Distance(int twist, int flip, int slice)
+    {
+        return Math.max(TWIST_SLICE[twist * MoveTables.NUM_SLICES + slice],
+                        FLIP_SLICE[flip * MoveTables.NUM_SLICES + slice]);
+    }
+
+    private static int phase2Distance(int corner, int udEdge, int slice)
+    {
+        return Math.max(CORNER_SLICE[corner * NUM_SLICE_PERMUTATIONS + slice],
+                        UD_EDGE_SLICE[udEdge * NUM_SLICE_PERMUTATIONS + slice]);
+    }
+
+    // searches for phase one solutions of exactly <togo> more moves and
+    // hands each to phase two; returns true when the search is over
+    private boolean phase1(int twist, int flip, int slice, int depth, int togo, int pruneState)
+    {
+        if (phase1Distance(twist, flip, slice) > togo)
+            return false;
+        if (togo == 0)
+        {
+            if (depth > 0 && IS_PHASE2_MOVE[stack[depth - 1]])
+                return false;
+            return phase2(depth, pruneState);
+        }
+
+        int children = 0;
+        for (int i = 0; i < PHASE1_MOVES.length; i++)
+        {
+            int next = pruning.next(pruneState, i);
+            if (next < 0)
+                continue;
+            int m = PHASE1_MOVES[i];
+            children++;
+            stack[depth] = m;
+            if (phase1(MoveTables.TWIST_MOVE[m][twist], MoveTables.FLIP_MOVE[m][flip],
+                       MoveTables.SLICE_MOVE[m][slice], depth + 1, togo - 1, next))
+            {
+                puzzle.incrementSearchCount(children);
+                return true;
+            }
+        }
+        puzzle.incrementSearchCount(children);
+        return false;
+    }
+
+    // looks for a phase two solution following the phase one solution of
+    // <length> moves on the stack that beats the best so far; returns
+    // true when the search is over
+    private boolean phase2(int length, int pruneState)
+    {
+        long c = corners;
+        long e = edges;
+        for (int i = 0; i < length; i++)
+        {
+            c = MoveKernels.corners(c, stack[i]);
+            e = MoveKernels.edges(e, stack[i]);
+        }
+        int corner = MoveTables.cornerPermutation(c);
+        int udEdge = udEdgePermutation(e);
+        int slice = slicePermutation(e);
+
+        for (int depth = phase2Distance(corner, udEdge, slice); length + depth < bestLength; depth++)
+        {
+            if (phase2(corner, udEdge, slice, length, depth, pruneState))
+            {
+                bestLength = length + depth;
+                phase1Length = length;
+                moves = java.util.Arrays.copyOf(stack, bestLength);
+                break;
+            }
+        }
+        return moves != null && (bestLength <= maxLength || System.nanoTime() >= deadline);
+    }
+
+    // searches for a phase two solution of exactly <togo> more moves,
+    // leaving it on the stack if there is one
+    private boolean phase2(int corner, int udEdge, int slice, int depth, int togo, int pruneState)
+    {
+        if (togo == 0)
+            return corner == 0 && udEdge == 0 && slice == 0;
+        if (phase2Distance(corner, udEdge, slice) > togo)
+            return false;
+
+        int children = 0;
+        for (int i = 0; i < PHASE2_MOVES.length; i++)
+        {
+            int next = PHASE2_PRUNING.next(pruneState, i);
+            if (next < 0)
+                continue;
+            children++;
+            stack[depth] = PHASE2_MOVES[i];
+            if (phase2(CORNER_MOVE2[i][corner], UD_EDGE_MOVE2[i][udEdge], SLICE_MOVE2[i][slice],
+                       depth + 1, togo - 1, next))
+            {
+                puzzle.incrementSearchCount(children);
+                return true;
+            }
+        }
+        puzzle.incrementSearchCount(children);
+        return false;
+    }
+
+    // fills in path from the moves
+    private void solution(State initial)
+    {
+        path = new State[moves.length + 1];
+        path[0] = initial;
+        long c = initial.getCorners();
+        long e = initial.getEdges();
+        for (int i = 0; i < moves.length; i++)
+        {
+            c = MoveKernels.corners(c, moves[i]);
+            e = MoveKernels.edges(e, moves[i]);
+            path[i + 1] = new State(puzzle, c, e);
+        }
+    }
+
+    // the distances from the pair (0, solvedB) of two coordinates, as
+    // a * sizeB + b, by a breadth-first search under the given move tables
+    private static byte[] pruningTable(char[][] moveA, int sizeA, char[][] moveB, int sizeB, int solvedB)
+    {
+        byte[] table = new byte[sizeA * sizeB];
+        java.util.Arrays.fill(table, (byte) -1);
+        table[solvedB] = 0;
+        boolean grew = true;
+        for (int depth = 0; grew; depth++)
+        {
+            grew = false;
+            for (int i = 0; i < table.length; i++)
+            {
+                if (table[i] != depth)
+                    continue;
+                int a = i / sizeB;
+                int b = i % sizeB;
+                for (int m = 0; m < moveA.length; m++)
+                {
+                    int j = moveA[m][a] * sizeB + moveB[m][b];
+                    if (table[j] < 0)
+                    {
+                        table[j] = (byte) (depth + 1);
+                        grew = true;
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the rank of the permutation of the edges of the u and d
+     * faces, which must be in their own slots, as
+     * <tt>MoveTables.cornerPermutation</tt> ranks the corners.
+     */
+    static int udEdgePermutation(long edges)
+    {
+        return permutation(edges, 0, NUM_UD_EDGES);
+    }
+
+    /**
+     * Returns the rank of the permutation of the slice edges, which
+     * must be in the slice.
+     */
+    static int slicePermutation(long edges)
+    {
+        return permutation(edges, NUM_UD_EDGES, NUM_SLICE_EDGES);
+    }
+
+    // the rank of the slots of edges first to first + n - 1, which are
+    // in those slots
+    private static int permutation(long edges, int first, int n)
+    {
+        int[] slotOf = new int[n];
+        for (int i = 0; i < n; i++)
+            slotOf[CubieTables.cubie(edges, first + i, CubieTables.CUBIE_MASK_EDGE) - first] = i;
+
+        int perm = 0;
+        int used = 0;
+        for (int c = 0; c < n; c++)
+        {
+            int s = slotOf[c];
+            perm = perm * (n - c) + s - Integer.bitCount(used & ((1 << s) - 1));
+            used |= 1 << s;
+        }
+        return perm;
+    }
+
+    // unflipped edges with the given permutations of the u and d edges
+    // and of the slice edges
+    private static long edgesWithPermutations(int udEdge, int slice)
+    {
+        int[] slots = new int[CubieTables.NUM_EDGES];
+        unrank(udEdge, 0, NUM_UD_EDGES, slots);
+        unrank(slice, NUM_UD_EDGES, NUM_SLICE_EDGES, slots);
+        long edges = 0;
+        for (int i = 0; i < CubieTables.NUM_EDGES; i++)
+            edges |= (long) i << (CubieTables.FIELD_BITS * slots[i]);
+        return edges;
+    }
+
+    // sets slots[first + c] to the slot of edge first + c under the
+    // permutation of rank perm
+    private static void unrank(int perm, int first, int n, int[] slots)
+    {
+        int[] digits = new int[n];
+        for (int c = n - 1; c >= 0; c--)
+        {
+            digits[c] = perm % (n - c);
+            perm /= n - c;
+        }
+        int used = 0;
+        for (int c = 0; c < n; c++)
+        {
+            int s = 0;
+            for (int d = digits[c]; d > 0 || (used & (1 << s)) != 0; s++)
+            {
+                if ((used & (1 << s)) == 0)
+                    d--;
+            }
+            used |= 1 << s;
+            slots[first + c] = first + s;
+        }
+    }
+}